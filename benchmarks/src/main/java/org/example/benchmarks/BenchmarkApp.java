@@ -0,0 +1,118 @@
+package org.example.benchmarks;
+
+import org.example.Main;
+import org.example.dto.categoryRequestDTO;
+import org.example.dto.productRequestDTO;
+import org.example.model.Product;
+import org.example.repository.productRepository;
+import org.example.services.categoryService;
+import org.example.services.productService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application (with or without its web server) on a private in-memory H2 database and
+ * seeds it with a catalog of a given size.
+ *
+ * <p>
+ * Each benchmark trial gets its own database, named after the catalog size and a counter, so
+ * trials never see each other's rows. SQL logging is switched off: it would dominate the timings.
+ * </p>
+ */
+final class BenchmarkApp {
+
+    /** Products per category in a seeded catalog. */
+    static final int PRODUCTS_PER_CATEGORY = 100;
+
+    private static int databases;
+
+    private BenchmarkApp() {
+    }
+
+    /**
+     * Starts the application context, without a web server, on a fresh database.
+     *
+     * @param name a label for the database, used in its URL.
+     * @return the running context; the caller closes it.
+     */
+    static ConfigurableApplicationContext start(String name) {
+        return start(name, WebApplicationType.NONE);
+    }
+
+    /**
+     * Starts the application context on a fresh database.
+     *
+     * @param name       a label for the database, used in its URL.
+     * @param type       {@code SERVLET} to also start Tomcat (on a random port, see {@link #port}).
+     * @param properties extra application properties, as {@code key=value}.
+     * @return the running context; the caller closes it.
+     */
+    static synchronized ConfigurableApplicationContext start(String name, WebApplicationType type, String... properties) {
+        return new SpringApplicationBuilder(Main.class)
+                .web(type)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + name + "-" + (++databases) + ";DB_CLOSE_DELAY=-1",
+                        "app.sql.log.slow-threshold-ms=60000",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "server.port=0")
+                .properties(properties)
+                .run();
+    }
+
+    /** The port Tomcat listens on in a context started with {@code SERVLET}. */
+    static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    /**
+     * Seeds a catalog of {@code productCount} products spread over one category per
+     * {@value #PRODUCTS_PER_CATEGORY} products, using the bulk import.
+     *
+     * @param context      a context returned by {@link #start(String)}.
+     * @param productCount the number of products to create.
+     * @return the IDs of the created products and categories.
+     */
+    static Catalog seed(ConfigurableApplicationContext context, int productCount) {
+        categoryService categories = context.getBean(categoryService.class);
+        productService products = context.getBean(productService.class);
+
+        int categoryCount = Math.max(1, productCount / PRODUCTS_PER_CATEGORY);
+        int[] categoryIds = new int[categoryCount];
+        for (int i = 0; i < categoryCount; i++) {
+            categoryRequestDTO dto = new categoryRequestDTO();
+            dto.setName("Category " + i);
+            categoryIds[i] = categories.createCategory(dto).getId();
+        }
+
+        List<productRequestDTO> batch = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            batch.add(productRequest("Product " + i, 1 + i % 1000, categoryIds[i % categoryCount]));
+            if (batch.size() == productService.MAX_IMPORT_ROWS || i == productCount - 1) {
+                products.importProducts(batch);
+                batch = new ArrayList<>();
+            }
+        }
+
+        int[] productIds = context.getBean(productRepository.class).findAll().stream()
+                .mapToInt(Product::getId).toArray();
+        return new Catalog(productIds, categoryIds);
+    }
+
+    static productRequestDTO productRequest(String name, int price, int categoryId) {
+        productRequestDTO dto = new productRequestDTO();
+        dto.setName(name);
+        dto.setPrice(price);
+        dto.setCategoryId(categoryId);
+        return dto;
+    }
+
+    /** IDs of a seeded catalog. */
+    record Catalog(int[] productIds, int[] categoryIds) {
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.dto.categorySummaryDTO;
+import org.example.model.Category;
+import org.example.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload size and encode/decode CPU of the list endpoints in JSON, CBOR and Smile.
+ *
+ * <p>
+ * {@link #encodeProductPage()} and {@link #decodeProductPage()} are one full page (500 products) of
+ * {@code GET /api/products} written by the server and read back by a client; {@link #encodeCategories()} and
+ * {@link #decodeCategories()} are the category list of a catalog of {@code catalogSize} products
+ * ({@value BenchmarkApp#PRODUCTS_PER_CATEGORY} per category). The mappers are built like the application's
+ * (see {@code org.example.config.binaryFormatsConfig}). The body sizes are printed at setup.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    private ObjectMapper mapper;
+    private List<Product> page;
+    private List<categorySummaryDTO> summaries;
+    private byte[] pageBytes;
+    private byte[] summaryBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory());
+            case "smile" -> builder.factory(new SmileFactory());
+            default -> { }
+        }
+        mapper = builder.build();
+
+        Category category = new Category("Electronics");
+        category.setId(1);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            Product p = new Product("Product " + i, 100 + i % 900, category);
+            p.setId(i);
+            page.add(p);
+        }
+        summaries = new ArrayList<>();
+        for (int i = 1; i <= Math.max(1, catalogSize / BenchmarkApp.PRODUCTS_PER_CATEGORY); i++) {
+            summaries.add(new categorySummaryDTO(i, "Category " + i, BenchmarkApp.PRODUCTS_PER_CATEGORY));
+        }
+        pageBytes = encodeProductPage();
+        summaryBytes = encodeCategories();
+
+        System.out.printf("%n%s: product page of %d: %,d bytes, %d categories: %,d bytes%n",
+                format, PAGE_SIZE, pageBytes.length, summaries.size(), summaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeProductPage() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<Product> decodeProductPage() throws Exception {
+        return mapper.readValue(pageBytes, new TypeReference<List<Product>>() { });
+    }
+
+    @Benchmark
+    public byte[] encodeCategories() throws Exception {
+        return mapper.writeValueAsBytes(summaries);
+    }
+
+    @Benchmark
+    public JsonNode decodeCategories() throws Exception {
+        return mapper.readTree(summaryBytes);// the DTO is write-only (no default constructor), so read it as a tree
+    }
+}
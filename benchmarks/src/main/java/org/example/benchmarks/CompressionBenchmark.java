@@ -0,0 +1,116 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.config.cacheConfig;
+import org.example.controller.jsonBodyCache;
+import org.example.dto.categorySummaryDTO;
+import org.example.model.Category;
+import org.example.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bytes on the wire and CPU per request of the list endpoints, with and without gzip.
+ *
+ * <p>
+ * {@link #productPageJson()} and {@link #productPageGzip()} are one full page (500 products) of
+ * {@code GET /api/products}: serialized, and serialized then gzipped the way the server's response
+ * compression does on every request. {@link #categoriesGzip()} is the category list of a catalog of
+ * {@code catalogSize} products ({@value BenchmarkApp#PRODUCTS_PER_CATEGORY} per category) gzipped per request;
+ * {@link #categoriesCached()} is the same list through {@link jsonBodyCache}, which serializes and gzips
+ * it once per version. The body sizes are printed at setup.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private ObjectMapper mapper;
+    private List<Product> page;
+    private List<categorySummaryDTO> summaries;
+    private jsonBodyCache bodyCache;
+    private WebRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Category category = new Category("Electronics");
+        category.setId(1);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            Product p = new Product("Product " + i, 100 + i % 900, category);
+            p.setId(i);
+            page.add(p);
+        }
+        summaries = new ArrayList<>();
+        for (int i = 1; i <= Math.max(1, catalogSize / BenchmarkApp.PRODUCTS_PER_CATEGORY); i++) {
+            summaries.add(new categorySummaryDTO(i, "Category " + i, BenchmarkApp.PRODUCTS_PER_CATEGORY));
+        }
+
+        bodyCache = new jsonBodyCache();
+        ReflectionTestUtils.setField(bodyCache, "objectMapper", mapper);
+        ReflectionTestUtils.setField(bodyCache, "cacheManager", new ConcurrentMapCacheManager(cacheConfig.CATEGORY_LIST_JSON));
+        ReflectionTestUtils.setField(bodyCache, "compress", true);
+        ReflectionTestUtils.setField(bodyCache, "minCompressSize", DataSize.ofKilobytes(1));
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/categories");
+        servletRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        request = new ServletWebRequest(servletRequest);
+
+        System.out.printf("%nproduct page of %d: %,d bytes JSON, %,d gzipped%n",
+                PAGE_SIZE, productPageJson().length, productPageGzip().length);
+        System.out.printf("%d categories: %,d bytes JSON, %,d gzipped%n",
+                summaries.size(), mapper.writeValueAsBytes(summaries).length, categoriesGzip().length);
+    }
+
+    @Benchmark
+    public byte[] productPageJson() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] productPageGzip() throws Exception {
+        return gzip(mapper.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public byte[] categoriesGzip() throws Exception {
+        return gzip(mapper.writeValueAsBytes(summaries));
+    }
+
+    @Benchmark
+    public byte[] categoriesCached() {
+        return bodyCache.ok(cacheConfig.CATEGORY_LIST_JSON, "all", "v1", () -> summaries, request).getBody();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+}
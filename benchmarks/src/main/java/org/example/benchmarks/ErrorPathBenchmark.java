@@ -0,0 +1,91 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.controller.productController;
+import org.example.exception.customException;
+import org.example.exception.errorResponse;
+import org.example.exception.globalexceptionHandler;
+import org.example.model.Product;
+import org.example.services.productService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Cost of answering a request with an error through {@link globalexceptionHandler}.
+ *
+ * <p>
+ * {@link #handlerOnly()} creates and throws the exception and lets the handler build its response, whose
+ * body is pre-serialized JSON. {@link #jacksonBody()} is the same miss answered the way the handler used to:
+ * an {@link errorResponse} serialized by Jackson. {@link #throughDispatcher()} sends
+ * {@code GET /api/products/{id}} for a missing product through the MVC dispatcher (standalone
+ * {@link MockMvc}, no server), so it also pays for handler lookup, exception resolution and message
+ * conversion. The service is stubbed to always throw, so no database is involved.
+ * </p>
+ *
+ * <p>
+ * Each runs with and without stack-trace capture ({@code captureStackTraces}). Add {@code -prof gc} to
+ * {@code jmh.args} to see the bytes allocated per miss ({@code gc.alloc.rate.norm}).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    @Param({"false", "true"})
+    public boolean captureStackTraces;
+
+    private ObjectMapper mapper;
+    private globalexceptionHandler handler;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        handler = new globalexceptionHandler();
+        customException.setCaptureStackTraces(captureStackTraces);
+
+        productController controller = new productController();
+        ReflectionTestUtils.setField(controller, "productService", new productService() {
+            @Override
+            public Product getProductById(int id) {
+                throw new customException.ResourceNotFoundException("Product with ID " + id + " not found");
+            }
+        });
+        ReflectionTestUtils.setField(controller, "objectMapper", mapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(handler).build();
+    }
+
+    @Benchmark
+    public byte[] handlerOnly() {
+        try {
+            throw new customException.ResourceNotFoundException("Product with ID 42 not found");
+        } catch (customException.ResourceNotFoundException e) {
+            return handler.handleNotFound(e).getBody();
+        }
+    }
+
+    @Benchmark
+    public byte[] jacksonBody() throws Exception {
+        try {
+            throw new customException.ResourceNotFoundException("Product with ID 42 not found");
+        } catch (customException.ResourceNotFoundException e) {
+            return mapper.writeValueAsBytes(new errorResponse(e.getMessage(), 404));
+        }
+    }
+
+    @Benchmark
+    public int throughDispatcher() throws Exception {
+        return mockMvc.perform(get("/api/products/42")).andReturn().getResponse().getContentLength();
+    }
+}
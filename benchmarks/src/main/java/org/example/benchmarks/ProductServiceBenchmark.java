@@ -0,0 +1,98 @@
+package org.example.benchmarks;
+
+import org.example.dto.categorySummaryDTO;
+import org.example.dto.productBatchDTO;
+import org.example.dto.productPatchDTO;
+import org.example.model.Product;
+import org.example.services.categoryService;
+import org.example.services.productService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service-layer benchmarks against the full application context on an embedded H2 database.
+ *
+ * <p>
+ * Every call goes through the real Spring proxies (transactions, caching), Hibernate and H2,
+ * so the numbers include the database round trips but no HTTP. Run at several catalog sizes to
+ * see how each operation scales; reads and updates pick a random existing row per call.
+ * {@link #createProduct()} grows the catalog while it runs, by far less than the smallest size.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int CART_SIZE = 50;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private productService products;
+    private categoryService categories;
+    private BenchmarkApp.Catalog catalog;
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("service-" + catalogSize);
+        products = context.getBean(productService.class);
+        categories = context.getBean(categoryService.class);
+        catalog = BenchmarkApp.seed(context, catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Product getProductById() {
+        return products.getProductById(randomProductId());
+    }
+
+    /** A cart's worth of random IDs, mostly served from the product cache once it has warmed up. */
+    @Benchmark
+    public productBatchDTO getProductsByIds() {
+        List<Integer> ids = new ArrayList<>(CART_SIZE);
+        for (int i = 0; i < CART_SIZE; i++) {
+            ids.add(randomProductId());
+        }
+        return products.getProductsByIds(ids);
+    }
+
+    @Benchmark
+    public Product createProduct() {
+        int[] categoryIds = catalog.categoryIds();
+        return products.createProduct(BenchmarkApp.productRequest("New product " + created.incrementAndGet(),
+                100, categoryIds[ThreadLocalRandom.current().nextInt(categoryIds.length)]));
+    }
+
+    @Benchmark
+    public Product updateProduct() {
+        productPatchDTO dto = new productPatchDTO();
+        dto.setPrice(1 + ThreadLocalRandom.current().nextInt(1000));
+        return products.updateProduct(randomProductId(), null, dto);
+    }
+
+    @Benchmark
+    public List<categorySummaryDTO> getAllCategories() {
+        return categories.getAllCategories();
+    }
+
+    private int randomProductId() {
+        int[] ids = catalog.productIds();
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
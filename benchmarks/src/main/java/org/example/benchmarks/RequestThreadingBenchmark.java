@@ -0,0 +1,85 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP throughput and latency percentiles of {@code GET /api/products/{id}} with 1024 concurrent
+ * clients, with Tomcat on its platform-thread worker pool versus on virtual threads.
+ *
+ * <p>
+ * Both modes use the same connection pool size, which bounds the database work in flight.
+ * {@code Throughput} mode reports requests per second; {@code SampleTime} reports the latency
+ * distribution including p99. The {@code virtual} mode needs a Java 21+ JVM (Spring Boot ignores
+ * {@code spring.threads.virtual.enabled} on older ones), so that trial fails fast there rather than
+ * silently measuring platform threads twice.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(1024)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512k"})
+public class RequestThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"10"})
+    public int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private BenchmarkApp.Catalog catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = threading.equals("virtual");
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21+, this JVM is " + Runtime.version());
+        }
+        context = BenchmarkApp.start("threading-" + threading, WebApplicationType.SERVLET,
+                "spring.threads.virtual.enabled=" + virtual,
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "server.tomcat.max-connections=8192");
+        catalog = BenchmarkApp.seed(context, catalogSize);
+        baseUrl = "http://localhost:" + BenchmarkApp.port(context) + "/api/products/";
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getProduct() throws Exception {
+        int[] ids = catalog.productIds();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ids[ThreadLocalRandom.current().nextInt(ids.length)]))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.benchmarks;
+
+import org.example.dto.productSearchResultDTO;
+import org.example.services.productSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link productSearchIndex#search(String, int, int)} on a large catalog, without Spring or the database.
+ *
+ * <p>
+ * The index is filled with {@code catalogSize} generated names of the form
+ * {@code "<adjective> <material> <noun> <model number>"}. The queries cover a one-letter prefix, a common word,
+ * a two-word phrase and a rare model number; a search costs in proportion to the ID list of the query's rarest
+ * trigram, so the common word is the slowest case.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SearchIndexBenchmark {
+
+    private static final String[] ADJECTIVES = {
+            "Red", "Blue", "Green", "Black", "White", "Small", "Large", "Compact", "Deluxe", "Classic",
+            "Modern", "Rustic", "Portable", "Heavy", "Light", "Smart", "Quiet", "Rapid", "Golden", "Silver"};
+    private static final String[] MATERIALS = {
+            "Steel", "Cotton", "Wooden", "Plastic", "Leather", "Glass", "Ceramic", "Bamboo", "Copper", "Wool"};
+    private static final String[] NOUNS = {
+            "Garden Hose", "Chair", "Lamp", "Kettle", "Backpack", "Blanket", "Mug", "Shelf", "Jacket", "Speaker",
+            "Table", "Bottle", "Pillow", "Clock", "Rug", "Toaster", "Wallet", "Helmet", "Bucket", "Notebook"};
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"g", "lamp", "garden hose", "x-90210"})
+    public String query;
+
+    private productSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new productSearchIndex();
+        Random random = new Random(42);
+        for (int id = 1; id <= catalogSize; id++) {
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + MATERIALS[random.nextInt(MATERIALS.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " "
+                    + (char) ('A' + random.nextInt(26)) + "-" + id;
+            index.put(id, name);
+        }
+    }
+
+    @Benchmark
+    public productSearchResultDTO firstPage() {
+        return index.search(query, 0, 20);
+    }
+}
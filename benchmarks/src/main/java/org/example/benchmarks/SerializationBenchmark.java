@@ -0,0 +1,105 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.config.cacheConfig;
+import org.example.controller.jsonBodyCache;
+import org.example.dto.categorySummaryDTO;
+import org.example.model.Category;
+import org.example.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response bodies, without Spring MVC or the database.
+ *
+ * <p>
+ * The mapper comes from {@link Jackson2ObjectMapperBuilder} with the defaults Spring Boot applies.
+ * {@link #categoryWithProducts()} serializes one category whose {@code products} collection holds the
+ * whole catalog; it should stay flat as the catalog grows because that collection is never written.
+ * {@link #cachedProduct()} is a repeat read of the same product version through {@link jsonBodyCache},
+ * as {@code GET /api/products/{id}} does it: the bytes are looked up, not serialized.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int catalogSize;
+
+    private ObjectMapper mapper;
+    private Product product;
+    private List<Product> productList;
+    private Category category;
+    private List<categorySummaryDTO> summaries;
+    private jsonBodyCache bodyCache;
+    private WebRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        category = new Category("Electronics");
+        category.setId(1);
+        productList = new ArrayList<>(catalogSize);
+        Set<Product> products = new HashSet<>();
+        for (int i = 1; i <= catalogSize; i++) {
+            Product p = new Product("Product " + i, i, category);
+            p.setId(i);
+            productList.add(p);
+            products.add(p);
+        }
+        category.setProducts(products);
+        product = productList.get(0);
+
+        bodyCache = new jsonBodyCache();
+        ReflectionTestUtils.setField(bodyCache, "objectMapper", mapper);
+        ReflectionTestUtils.setField(bodyCache, "cacheManager", new ConcurrentMapCacheManager(cacheConfig.PRODUCT_JSON));
+        request = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/products/1"));
+
+        summaries = new ArrayList<>();
+        for (int i = 1; i <= Math.max(1, catalogSize / BenchmarkApp.PRODUCTS_PER_CATEGORY); i++) {
+            summaries.add(new categorySummaryDTO(i, "Category " + i, BenchmarkApp.PRODUCTS_PER_CATEGORY));
+        }
+    }
+
+    @Benchmark
+    public byte[] product() throws Exception {
+        return mapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] cachedProduct() {
+        return bodyCache.ok(cacheConfig.PRODUCT_JSON, product.getId(), product.getVersion(), () -> product, request).getBody();
+    }
+
+    @Benchmark
+    public byte[] productList() throws Exception {
+        return mapper.writeValueAsBytes(productList);
+    }
+
+    @Benchmark
+    public byte[] categoryWithProducts() throws Exception {
+        return mapper.writeValueAsBytes(category);
+    }
+
+    @Benchmark
+    public byte[] categorySummaries() throws Exception {
+        return mapper.writeValueAsBytes(summaries);
+    }
+}
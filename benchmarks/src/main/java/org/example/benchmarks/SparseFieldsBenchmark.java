@@ -0,0 +1,87 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.categoryFieldsDTO;
+import org.example.dto.productFieldsDTO;
+import org.example.services.categoryService;
+import org.example.services.productService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole entities against {@code fields=} projections, read through the services and serialized to JSON.
+ *
+ * <p>
+ * {@link #productPage()} and {@link #productPageIdPrice()} are one page of {@value #PAGE_SIZE} products in
+ * price order from a random position, as {@code GET /api/products?sort=price} returns it with and without
+ * {@code fields=id,price}. {@link #categories()} and {@link #categoriesIdName()} are {@code GET /api/categories}
+ * with and without {@code fields=id,name} on a cache miss. Add {@code -prof gc} to {@code jmh.args} for the
+ * bytes allocated per call.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SparseFieldsBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+
+    private static final Set<String> ID_PRICE = productService.parseFields("id,price", productFieldsDTO.FIELDS);
+
+    private static final Set<String> ID_NAME = productService.parseFields("id,name", categoryFieldsDTO.FIELDS);
+
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private productService products;
+    private categoryService categories;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("fields-" + catalogSize);
+        products = context.getBean(productService.class);
+        categories = context.getBean(categoryService.class);
+        mapper = context.getBean(ObjectMapper.class);
+        BenchmarkApp.seed(context, catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] productPage() throws Exception {
+        return mapper.writeValueAsBytes(products.getProductsPage(null, randomPrice(), null, productService.SORT_BY_PRICE, null, PAGE_SIZE).getItems());
+    }
+
+    @Benchmark
+    public byte[] productPageIdPrice() throws Exception {
+        return mapper.writeValueAsBytes(products.getProductFieldsPage(ID_PRICE, null, randomPrice(), null, productService.SORT_BY_PRICE, null, PAGE_SIZE).getItems());
+    }
+
+    @Benchmark
+    public byte[] categories() throws Exception {
+        return mapper.writeValueAsBytes(categories.getAllCategories());
+    }
+
+    @Benchmark
+    public byte[] categoriesIdName() throws Exception {
+        List<categoryFieldsDTO> rows = categories.getCategoryFields(ID_NAME);
+        return mapper.writeValueAsBytes(rows);
+    }
+
+    private static int randomPrice() {
+        return ThreadLocalRandom.current().nextInt(100, 500);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.benchmarks;
+
+import org.example.dto.suggestionDTO;
+import org.example.services.nameSuggestIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and heap footprint of {@link nameSuggestIndex} on a large catalog, without Spring or the database.
+ *
+ * <p>
+ * The index is filled with {@code catalogSize} generated names shaped like those of {@link SearchIndexBenchmark}.
+ * Setup prints the retained heap of the filled index, name strings included, in total and per name. Lookups are
+ * timed for a one-letter prefix, a word, a two-word prefix ending inside a trie edge, and a prefix matching nothing;
+ * all of them cost in proportion to the prefix length, not to the number of matches.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SuggestIndexBenchmark {
+
+    private static final String[] ADJECTIVES = {
+            "Red", "Blue", "Green", "Black", "White", "Small", "Large", "Compact", "Deluxe", "Classic",
+            "Modern", "Rustic", "Portable", "Heavy", "Light", "Smart", "Quiet", "Rapid", "Golden", "Silver"};
+    private static final String[] MATERIALS = {
+            "Steel", "Cotton", "Wooden", "Plastic", "Leather", "Glass", "Ceramic", "Bamboo", "Copper", "Wool"};
+    private static final String[] NOUNS = {
+            "Garden Hose", "Chair", "Lamp", "Kettle", "Backpack", "Blanket", "Mug", "Shelf", "Jacket", "Speaker",
+            "Table", "Bottle", "Pillow", "Clock", "Rug", "Toaster", "Wallet", "Helmet", "Bucket", "Notebook"};
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"g", "golden", "golden wooden ch", "x-90210"})
+    public String prefix;
+
+    private nameSuggestIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedHeap(memory);
+        index = new nameSuggestIndex();
+        Random random = new Random(42);
+        for (int id = 1; id <= catalogSize; id++) {
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + MATERIALS[random.nextInt(MATERIALS.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " "
+                    + (char) ('A' + random.nextInt(26)) + "-" + id;
+            index.putProduct(id, name);
+        }
+        long retained = usedHeap(memory) - before;
+        System.out.printf("%n%,d names: %,d bytes retained, %d bytes per name%n",
+                index.size(), retained, retained / index.size());
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public List<suggestionDTO> topTen() {
+        return index.suggest(prefix, nameSuggestIndex.TOP_K);
+    }
+}
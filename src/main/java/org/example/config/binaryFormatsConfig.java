@@ -0,0 +1,47 @@
+package org.example.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Lets clients exchange CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile})
+ * instead of JSON, chosen through {@code Accept} and {@code Content-Type}.
+ *
+ * <p>
+ * Both are binary encodings of the same Jackson data model, meant for other services rather than browsers:
+ * field names and numbers are not spelled out as text, so bodies are smaller and cheaper to write and parse.
+ * The mappers come from Spring Boot's {@link Jackson2ObjectMapperBuilder}, so the {@code spring.jackson.*}
+ * settings and the Jackson annotations on the entities and DTOs apply exactly as they do to JSON.
+ * JSON stays the default: it is what a request without {@code Accept}, or with {@code *}{@code /*}, gets.
+ * </p>
+ */
+@Configuration
+public class binaryFormatsConfig {
+
+    /**
+     * Replaces the CBOR converter Spring MVC would add with one that honours {@code spring.jackson.*}.
+     *
+     * @param builder Boot's builder, a fresh instance per injection point.
+     * @return the converter for {@code application/cbor}.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Replaces the Smile converter Spring MVC would add with one that honours {@code spring.jackson.*}.
+     *
+     * @param builder Boot's builder, a fresh instance per injection point.
+     * @return the converter for {@code application/x-jackson-smile}.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Enables Spring's cache abstraction and names the caches used by the application.
+ *
+ * <p>
+ * The caches are Caffeine caches created by Spring Boot from {@code spring.cache.cache-names};
+ * their size and TTL bounds come from {@code spring.cache.caffeine.spec} in application.properties.
+ * {@code recordStats} in that spec makes Boot publish {@code cache.gets} (hit/miss),
+ * {@code cache.puts}, {@code cache.evictions} and {@code cache.size} on {@code /actuator/metrics}.
+ * </p>
+ *
+ * <p>
+ * The caching annotations see the entity caches ({@link #CATEGORIES} and {@link #PRODUCTS}) through
+ * {@link versionedCache}, so a read that loaded an entity before a concurrent update cannot put the
+ * older version back over the one the update cached.
+ * </p>
+ *
+ * <p>
+ * They also see every cache through a {@link TransactionAwareCacheDecorator}: a {@code @CachePut} or
+ * {@code @CacheEvict} on a {@code @Transactional} method (or one called inside a transaction) is applied
+ * after the transaction commits, and not at all if it rolls back. This holds whatever the order of the
+ * caching and transaction interceptors. Writes outside a transaction still apply right away.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+public class cacheConfig implements CachingConfigurer {
+    /** Categories by ID, filled by {@link org.example.repository.categoryRepository#findCachedById(int)}. */
+    public static final String CATEGORIES = "categories";
+
+    /** Products by ID, filled by {@link org.example.repository.productRepository#findCachedById(int)}. */
+    public static final String PRODUCTS = "products";
+
+    /** Response JSON of single categories by ID, filled by {@link org.example.controller.jsonBodyCache}. */
+    public static final String CATEGORY_JSON = "categoryJson";
+
+    /** Response JSON of the category list, one entry, filled by {@link org.example.controller.jsonBodyCache}. */
+    public static final String CATEGORY_LIST_JSON = "categoryListJson";
+
+    /** Response JSON of single products by ID, filled by {@link org.example.controller.jsonBodyCache}. */
+    public static final String PRODUCT_JSON = "productJson";
+
+    // looked up per call rather than injected: the cache manager is created after this configuration
+    @Autowired
+    private ObjectProvider<CacheManager> cacheManager;
+
+    @Override
+    public CacheResolver cacheResolver() {
+        return context -> {
+            Collection<String> names = context.getOperation().getCacheNames();
+            Collection<Cache> caches = new ArrayList<>(names.size());
+            for (String name : names) {
+                Cache cache = cacheManager.getObject().getCache(name);
+                if (cache == null) {
+                    throw new IllegalArgumentException("Cannot find cache named '" + name + "' for " + context.getOperation());
+                }
+                if (CATEGORIES.equals(name) || PRODUCTS.equals(name)) {
+                    cache = new versionedCache(cache);
+                }
+                caches.add(new TransactionAwareCacheDecorator(cache));
+            }
+            return caches;
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.config;
+
+import org.example.exception.customException;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Applies {@code app.exceptions.stack-traces} ({@code EXCEPTION_STACK_TRACES}): whether
+ * {@link customException}s record stack traces.
+ *
+ * <p>
+ * Off by default, since the exception handler never reads them; turn it on while debugging. The setting
+ * is static, so it is applied once, when the context starts.
+ * </p>
+ */
+@Configuration
+public class exceptionsConfig implements InitializingBean {
+
+    @Value("${app.exceptions.stack-traces:false}")
+    private boolean captureStackTraces;
+
+    @Override
+    public void afterPropertiesSet() {
+        customException.setCaptureStackTraces(captureStackTraces);
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application metrics on top of what Spring Boot already records.
+ *
+ * <p>
+ * Boot times every request ({@code http.server.requests}, tagged by route) and, through
+ * {@code @Timed} on the services, every service method ({@code service.calls}, tagged by class and
+ * method); both publish histogram buckets (see application.properties) for percentile queries.
+ * This class adds SQL statement counts, in total and per request. Everything is scraped from
+ * {@code /actuator/prometheus}.
+ * </p>
+ */
+@Configuration
+public class metricsConfig {
+
+    @Bean
+    public sqlStatementCounter sqlStatementCounter(MeterRegistry registry) {
+        return new sqlStatementCounter(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounting(sqlStatementCounter counter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+
+    @Bean
+    public sqlStatementsPerRequestFilter sqlStatementsPerRequestFilter(MeterRegistry registry) {
+        return new sqlStatementsPerRequestFilter(registry);
+    }
+}
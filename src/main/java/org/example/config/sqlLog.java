@@ -0,0 +1,119 @@
+package org.example.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous writer for the slow-query log.
+ *
+ * <p>
+ * JDBC threads only {@link #submit} entries into a bounded queue; one background thread formats
+ * them and writes them to the {@value #LOGGER_NAME} logger. When the queue is full, entries are
+ * dropped instead of blocking the caller, and the number dropped is logged once the writer catches up.
+ * </p>
+ */
+public class sqlLog implements AutoCloseable {
+
+    /** Logger that receives the entries. */
+    public static final String LOGGER_NAME = "org.example.sql";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final BlockingQueue<entry> queue;
+    private final Consumer<entry> sink;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public sqlLog(int capacity) {
+        this(capacity, e -> log.info("{}", e));
+    }
+
+    sqlLog(int capacity, Consumer<entry> sink) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sink = sink;
+        this.writer = new Thread(this::drain, "sql-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues an entry for writing; never blocks.
+     *
+     * @param e the entry to log.
+     */
+    public void submit(entry e) {
+        if (!queue.offer(e)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                entry e = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (e != null) {
+                    sink.accept(e);
+                }
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) {
+                    log.warn("Dropped {} SQL log entries, the log queue was full", lost);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {// a failing sink must not kill the writer
+                log.warn("Could not write SQL log entry", ex);
+            }
+        }
+    }
+
+    /** Writes what is still queued and stops the writer thread. */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * One logged statement.
+     *
+     * @param slow       true if it exceeded the slow threshold, false if it was sampled.
+     * @param millis     time spent executing the statement (not reading its results).
+     * @param rows       rows read (queries) or affected (updates and batches).
+     * @param batchSize  number of parameter sets in a JDBC batch, 0 if not batched.
+     * @param parameters the bind-parameter types in order, without their values.
+     * @param caller     the service method that ran the statement, or null if none is on the stack.
+     * @param sql        the statement text with its placeholders.
+     */
+    public record entry(boolean slow, double millis, long rows, int batchSize, List<String> parameters,
+                        String caller, String sql) {
+        @Override
+        public String toString() {
+            return String.format("%s sql %.1f ms, %d rows%s, caller %s, params %s: %s",
+                    slow ? "slow" : "sampled", millis, rows, batchSize > 0 ? ", batch of " + batchSize : "",
+                    caller == null ? "-" : caller, shape(parameters), sql);
+        }
+
+        // runs of one type are collapsed, so a 1000-element IN list reads [String x1000]
+        private static String shape(List<String> parameters) {
+            StringBuilder out = new StringBuilder("[");
+            for (int i = 0; i < parameters.size(); ) {
+                int run = 1;
+                while (i + run < parameters.size() && parameters.get(i + run).equals(parameters.get(i))) {
+                    run++;
+                }
+                out.append(out.length() > 1 ? ", " : "").append(parameters.get(i)).append(run > 1 ? " x" + run : "");
+                i += run;
+            }
+            return out.append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Slow-query log, replacing {@code spring.jpa.show-sql}.
+ *
+ * <p>
+ * Wraps the application data source in a {@link sqlLoggingDataSource}: statements slower than
+ * {@code app.sql.log.slow-threshold-ms} are always logged, a fraction {@code app.sql.log.sample-rate}
+ * of the rest is logged too, and all writing happens on the {@link sqlLog} thread rather than on
+ * the request thread.
+ * </p>
+ */
+@Configuration
+public class sqlLogConfig {
+
+    @Bean(destroyMethod = "close")
+    public sqlLog sqlLog(@Value("${app.sql.log.queue-capacity:10000}") int capacity) {
+        return new sqlLog(capacity);
+    }
+
+    // static: post-processors are created before the other beans of this class
+    @Bean
+    public static BeanPostProcessor sqlLoggingDataSourcePostProcessor(
+            ObjectProvider<sqlLog> sqlLog,
+            @Value("${app.sql.log.slow-threshold-ms:100}") long slowMillis,
+            @Value("${app.sql.log.sample-rate:0}") double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("app.sql.log.sample-rate must be between 0 and 1, was " + sampleRate);
+        }
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof sqlLoggingDataSource)) {
+                    return new sqlLoggingDataSource(dataSource, sqlLog.getObject(), slowMillis, sampleRate);
+                }
+                return bean;
+            }
+        };
+    }
+}
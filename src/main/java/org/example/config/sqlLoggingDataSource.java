@@ -0,0 +1,226 @@
+package org.example.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Data source wrapper that feeds the slow-query log ({@link sqlLog}).
+ *
+ * <p>
+ * Every statement is timed from {@code execute*} until the driver returns. Statements at or over the
+ * slow threshold are always logged; the others are logged with the configured sample rate. Bind
+ * parameters are recorded by type only, so values never reach the log. For a logged query the
+ * returned result set counts the rows read, and the entry is submitted when the result set (or its
+ * statement) is closed. The calling service method is found from the stack only for logged
+ * statements, so unlogged statements pay for a clock read and a few map writes.
+ * </p>
+ */
+public class sqlLoggingDataSource extends DelegatingDataSource {
+
+    // frames from these classes name the caller; Spring proxies ($$) are skipped
+    private static final String CALLER_PACKAGE = "org.example.services.";
+
+    private final sqlLog log;
+    private final long slowNanos;
+    private final double sampleRate;
+
+    /**
+     * @param target     the data source to wrap.
+     * @param log        where logged statements go.
+     * @param slowMillis statements taking at least this long are always logged.
+     * @param sampleRate fraction (0 to 1) of the other statements to log.
+     */
+    public sqlLoggingDataSource(DataSource target, sqlLog log, long slowMillis, double sampleRate) {
+        super(target);
+        this.log = log;
+        this.slowNanos = slowMillis * 1_000_000;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = method.invoke(target, args);
+            if (result instanceof Statement statement) {
+                // prepareStatement/prepareCall carry their SQL; plain statements get it on execute
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return wrap(statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Statement wrap(Statement statement, String sql) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return proxy(type, statement, new statementHandler(sql));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<? extends T> type, T target, targetHandler handler) {
+        return (T) Proxy.newProxyInstance(sqlLoggingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (p, method, args) -> {
+                    try {
+                        return handler.invoke(target, method, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private interface targetHandler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    /** Tracks the SQL, bind types and batch size of one statement and times its executions. */
+    private final class statementHandler implements targetHandler {
+        private String sql;
+        private final List<String> parameters = new ArrayList<>();
+        private int batchSize;
+        private pending open;// logged query whose result set is still being read
+
+        statementHandler(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(target, method, args, name);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                recordParameter(index, name, args[1]);
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("close")) {
+                finish();
+            }
+            return method.invoke(target, args);
+        }
+
+        private void recordParameter(int index, String setter, Object value) {
+            String type = setter.equals("setObject") && value != null ? value.getClass().getSimpleName()
+                    : setter.equals("setNull") ? "null" : setter.substring(3);
+            while (parameters.size() < index) {
+                parameters.add("?");
+            }
+            parameters.set(index - 1, type);
+        }
+
+        private Object execute(Object target, Method method, Object[] args, String name) throws Throwable {
+            finish();
+            if (args != null && args.length > 0 && args[0] instanceof String s) {
+                sql = s;
+            }
+            long start = System.nanoTime();
+            Object result = method.invoke(target, args);
+            long elapsed = System.nanoTime() - start;
+            int batch = name.equals("executeBatch") || name.equals("executeLargeBatch") ? batchSize : 0;
+            if (batch > 0) {
+                batchSize = 0;
+            }
+
+            boolean slow = elapsed >= slowNanos;
+            if (!slow && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+                return result;
+            }
+            pending entry = new pending(slow, elapsed, batch, List.copyOf(parameters), caller(), sql);
+            if (result instanceof ResultSet resultSet) {
+                open = entry;
+                return proxy(ResultSet.class, resultSet, (rs, m, a) -> {
+                    Object r = m.invoke(rs, a);
+                    if (m.getName().equals("next") && Boolean.TRUE.equals(r)) {
+                        entry.rows++;
+                    } else if (m.getName().equals("close")) {
+                        finish();
+                    }
+                    return r;
+                });
+            }
+            entry.rows = affectedRows(result, target);
+            log.submit(entry.toEntry());
+            return result;
+        }
+
+        private long affectedRows(Object result, Object target) throws SQLException {
+            if (result instanceof Number n) {
+                return n.longValue();
+            }
+            if (result instanceof int[] counts) {
+                return Arrays.stream(counts).filter(c -> c > 0).asLongStream().sum();
+            }
+            if (result instanceof long[] counts) {
+                return Arrays.stream(counts).filter(c -> c > 0).sum();
+            }
+            return Math.max(((Statement) target).getUpdateCount(), 0);// execute(): false means an update
+        }
+
+        private void finish() {
+            if (open != null) {
+                log.submit(open.toEntry());
+                open = null;
+            }
+        }
+    }
+
+    private static String caller() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(CALLER_PACKAGE) && !f.getClassName().contains("$$"))
+                .findFirst());
+        return frame.map(f -> f.getClassName().substring(CALLER_PACKAGE.length()) + "." + f.getMethodName())
+                .orElse(null);
+    }
+
+    private static final class pending {
+        final boolean slow;
+        final long nanos;
+        final int batchSize;
+        final List<String> parameters;
+        final String caller;
+        final String sql;
+        long rows;
+
+        pending(boolean slow, long nanos, int batchSize, List<String> parameters, String caller, String sql) {
+            this.slow = slow;
+            this.nanos = nanos;
+            this.batchSize = batchSize;
+            this.parameters = parameters;
+            this.caller = caller;
+            this.sql = sql;
+        }
+
+        sqlLog.entry toEntry() {
+            return new sqlLog.entry(slow, nanos / 1_000_000.0, rows, batchSize, parameters, caller, sql);
+        }
+    }
+}
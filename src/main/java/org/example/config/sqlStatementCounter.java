@@ -0,0 +1,58 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares, in total and for the request running on the current thread.
+ *
+ * <p>
+ * Registered as Hibernate's statement inspector by {@link metricsConfig}; it only counts and returns
+ * every statement unchanged. {@link sqlStatementsPerRequestFilter} opens a per-request count with
+ * {@link #begin()} and records it with {@link #end()}. Statements run outside a request (startup,
+ * async exports) only add to the {@value #TOTAL_METRIC} counter. A JDBC batch is prepared once, so it
+ * counts as one statement however many rows it writes.
+ * </p>
+ */
+public class sqlStatementCounter implements StatementInspector {
+
+    /** Counter of all statements prepared since startup. */
+    public static final String TOTAL_METRIC = "db.sql.statements";
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    private final Counter total;
+
+    public sqlStatementCounter(MeterRegistry registry) {
+        this.total = Counter.builder(TOTAL_METRIC)
+                .description("SQL statements prepared by Hibernate")
+                .register(registry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        total.increment();
+        int[] count = CURRENT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    /** Starts counting the statements run by the current thread. */
+    static void begin() {
+        CURRENT.set(new int[1]);
+    }
+
+    /**
+     * Stops counting for the current thread.
+     *
+     * @return the statements run since {@link #begin()}, or 0 if counting was not started.
+     */
+    static int end() {
+        int[] count = CURRENT.get();
+        CURRENT.remove();
+        return count == null ? 0 : count[0];
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request ran, per endpoint, as the
+ * {@value #METRIC} distribution (tags {@code method} and {@code uri}, the matched route pattern).
+ *
+ * <p>
+ * A route whose statement count grows with the data it returns shows up here as a rising mean
+ * and max, which is how N+1 query regressions are spotted.
+ * </p>
+ */
+public class sqlStatementsPerRequestFilter extends OncePerRequestFilter {
+
+    /** Distribution of statements per request. */
+    public static final String METRIC = "db.sql.statements.per.request";
+
+    private final MeterRegistry registry;
+
+    public sqlStatementsPerRequestFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        sqlStatementCounter.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = sqlStatementCounter.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC)
+                    .description("SQL statements run by one request")
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry)
+                    .record(statements);
+        }
+    }
+}
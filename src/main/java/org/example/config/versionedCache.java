@@ -0,0 +1,143 @@
+package org.example.config;
+
+import org.example.model.Category;
+import org.example.model.Product;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Wraps an entity cache so that a put never replaces a newer {@code @Version} of the same entity with an older one.
+ *
+ * <p>
+ * A read that misses the cache loads version N; if an update commits and caches version N+1 before the
+ * read gets to put its copy, a plain put would bring back version N until the entry expires. Its ETag
+ * would then make every {@code If-Match} against the current version fail. Here the put is an atomic
+ * merge on the cache's own map that keeps whichever copy has the higher version.
+ * </p>
+ *
+ * <p>
+ * {@link cacheConfig} applies it to the {@value cacheConfig#PRODUCTS} and {@value cacheConfig#CATEGORIES}
+ * caches for the caching annotations; code that writes to those caches directly uses
+ * {@link #putIfNewer(Cache, Object, Object)}. Everything else is passed to the wrapped cache, so its
+ * statistics are unchanged.
+ * </p>
+ */
+public final class versionedCache implements Cache {
+
+    private final Cache target;
+
+    versionedCache(Cache target) {
+        this.target = target;
+    }
+
+    /**
+     * Puts an entity into a cache unless the cache already holds the same or a newer version of it.
+     * <p>
+     * Values without a version, and caches whose native store is not a concurrent map (Caffeine or
+     * {@code ConcurrentMapCache}), get a plain put.
+     * </p>
+     *
+     * @param cache the cache to write to
+     * @param key   the entity ID
+     * @param value the entity, a {@link Product} or a {@link Category}
+     */
+    public static void putIfNewer(Cache cache, Object key, Object value) {
+        ConcurrentMap<Object, Object> map = mapOf(cache);
+        if (map == null || versionOf(value) == null) {
+            cache.put(key, value);
+            return;
+        }
+        map.merge(key, value, (cached, incoming) -> {
+            Integer cachedVersion = versionOf(cached);
+            return cachedVersion != null && cachedVersion >= versionOf(incoming) ? cached : incoming;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Object, Object> mapOf(Cache cache) {
+        Object store = cache.getNativeCache();
+        if (store instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return (ConcurrentMap<Object, Object>) caffeine.asMap();
+        }
+        return store instanceof ConcurrentMap<?, ?> map ? (ConcurrentMap<Object, Object>) map : null;
+    }
+
+    private static Integer versionOf(Object value) {
+        if (value instanceof Product product) {
+            return product.getVersion();
+        }
+        if (value instanceof Category category) {
+            return category.getVersion();
+        }
+        return null;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        putIfNewer(target, key, value);
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return target.get(key, valueLoader);
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return target.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return target.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+}
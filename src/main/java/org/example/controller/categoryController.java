@@ -1,13 +1,21 @@
 package org.example.controller;
 
 import jakarta.validation.Valid;
+import org.example.config.cacheConfig;
+import org.example.dto.categoryFieldsDTO;
 import org.example.dto.categoryRequestDTO;
+import org.example.dto.categoryStatsDTO;
+import org.example.dto.productFieldsDTO;
+import org.example.dto.productPageDTO;
 import org.example.exception.customException;
 import org.example.model.Category;
 import org.example.services.categoryService;
+import org.example.services.productService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -23,27 +31,97 @@ import java.util.Set;
 public class categoryController {
     @Autowired
     private categoryService categoryService;
+
+    @Autowired
+    private jsonBodyCache bodyCache;
+
+    /** Key of the one entry in {@value cacheConfig#CATEGORY_LIST_JSON}. */
+    private static final String ALL = "all";
 /**
- * Retrieves all categories.
- * If no categories are found, returns a message indicating this.
+ * Retrieves all categories with their product counts.
+ * The products themselves are served by {@link #getCategoryProducts(int, int, String, String)}.
+ * <p>
+ * The response carries an ETag built from an aggregate version of the categories and products.
+ * A request whose {@code If-None-Match} still matches gets 304 Not Modified, decided without
+ * loading the list. Otherwise the list is loaded and serialized once per version, and compressed once
+ * per version for clients that accept gzip; see {@link jsonBodyCache}.
+ * With {@code fields}, e.g. {@code fields=id,name}, each category carries only those fields, and without
+ * {@code productCount} the products are not counted; every set of fields is cached separately.
+ * </p>
  */
     @GetMapping("/categories")
     //gets all categories
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
-
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<byte[]> getAllCategories(@RequestParam(required = false) String fields, WebRequest request) {
+        String version = categoryService.getCategoriesVersion();
+        if (fields == null) {
+            return bodyCache.ok(cacheConfig.CATEGORY_LIST_JSON, ALL, version, categoryService::getAllCategories, request);
+        }
+        Set<String> selected = productService.parseFields(fields, categoryFieldsDTO.FIELDS);
+        return bodyCache.ok(cacheConfig.CATEGORY_LIST_JSON, String.join(",", selected), version,
+                () -> categoryService.getCategoryFields(selected), request);
+    }
+    /**
+     * Retrieves the product count and minimum, maximum and average price of every category, in ID order.
+     * Served from memory; no query runs.
+     *
+     * @return ResponseEntity containing the statistics of every category, including those without products.
+     */
+    @GetMapping("/categories/stats")
+    public ResponseEntity<List<categoryStatsDTO>> getAllCategoryStats() {
+        return ResponseEntity.ok(categoryService.getAllCategoryStats());
+    }
+    /**
+     * Retrieves the product count and minimum, maximum and average price of one category.
+     * Served from memory; no query runs.
+     *
+     * @param id the ID of the category.
+     * @return ResponseEntity containing the statistics; the prices are null if the category has no products.
+     * @throws customException.ResourceNotFoundException if no category with the given ID exists.
+     */
+    @GetMapping("/categories/{id}/stats")
+    public ResponseEntity<categoryStatsDTO> getCategoryStats(@PathVariable int id) {
+        return ResponseEntity.ok(categoryService.getCategoryStats(id));
     }
     /**
      * Retrieves a category by its ID.
      *
+     * The ETag is the category's version; a matching {@code If-None-Match} gets 304 Not Modified
+     * and no body is sent. The JSON of each category version is serialized once and then served
+     * from {@link jsonBodyCache}.
+     *
      * @param id the ID of the category to retrieve.
-     * @return ResponseEntity containing the category.
+     * @param request the request, for its {@code Accept}, {@code Accept-Encoding} and {@code If-None-Match} headers.
+     * @return ResponseEntity containing the category as JSON, or as CBOR or Smile if {@code Accept} prefers one.
      */
     @GetMapping("/categories/{id}")
-    public ResponseEntity<Category> getCategory(@PathVariable int id) {
+    public ResponseEntity<byte[]> getCategory(@PathVariable int id, WebRequest request) {
         Category category = categoryService.getCategoryById(id);
-        return ResponseEntity.ok(category);
+        return bodyCache.ok(cacheConfig.CATEGORY_JSON, id, category.getVersion(), () -> category, request);
+    }
+    /**
+     * Retrieves one page of the products in a category, ordered by ID.
+     * When more products follow, the cursor of the next page is returned in the
+     * {@code X-Next-Cursor} header; pass it back as {@code after} to continue.
+     *
+     * @param id the ID of the category.
+     * @param limit the page size (1 to 500, default 50).
+     * @param after the cursor returned with the previous page; omit for the first page.
+     * @param fields the product fields to return, like {@code fields} of {@code GET /api/products}; omit for whole products.
+     * @return ResponseEntity containing the page of products.
+     */
+    @GetMapping("/categories/{id}/products")
+    public ResponseEntity<List<?>> getCategoryProducts(@PathVariable int id,
+                                                       @RequestParam(defaultValue = "50") int limit,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(required = false) String fields) {
+        productPageDTO<?> page = fields == null
+                ? categoryService.getCategoryProducts(id, after, limit)
+                : categoryService.getCategoryProductFields(id, productService.parseFields(fields, productFieldsDTO.FIELDS), after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(productController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
     /**
      * Creates a new category.
@@ -57,12 +135,19 @@ public class categoryController {
     }
 /**
  * Updates the name of an existing category.
+ * <p>
+ * With {@code If-Match} the rename only applies if the category is still at that ETag, otherwise
+ * 412 Precondition Failed; with {@code If-Match: *} it applies to any version, and a missing category
+ * gets 412 rather than 404. The response carries the new ETag.
+ * </p>
  */
 
 @PatchMapping("/categories/{id}")
-public ResponseEntity<Category> updateCategory(@PathVariable int id, @Valid @RequestBody categoryRequestDTO dto) {
-    Category updated = categoryService.updateCategory(id, dto);
-    return ResponseEntity.ok(updated);
+public ResponseEntity<Category> updateCategory(@PathVariable int id,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @Valid @RequestBody categoryRequestDTO dto) {
+    Category updated = categoryService.updateCategory(id, etags.versionOf(ifMatch), dto);
+    return ResponseEntity.ok().eTag(etags.of(updated.getVersion())).body(updated);
 }
 /**
  * Deletes a category by its ID.
@@ -0,0 +1,144 @@
+package org.example.controller;
+
+import org.example.exception.customException;
+import org.example.services.productService;
+
+/**
+ * Builds the entity tags sent with responses and reads them back from {@code If-Match}.
+ *
+ * <p>
+ * Tags are strong: they come from the {@code @Version} of an entity, or an aggregate version
+ * for a collection, and so change exactly when the stored data changes. The gzip-encoded, CBOR and Smile
+ * forms of a body are different representations and get their own tags, the version with a {@code -gzip},
+ * {@code -cbor} or {@code -smile} suffix; all of them name the same entity version in {@code If-Match}.
+ * </p>
+ */
+final class etags {
+
+    private static final String GZIP = "gzip";
+
+    /** Representations other than plain JSON, each tagged with its name as a suffix. */
+    private static final String[] SUFFIXES = {"-" + GZIP, "-cbor", "-smile"};
+
+    /**
+     * What {@link #versionOf(String)} returns for {@code If-Match: *}: any version, but the entity must exist.
+     * Versions start at 0, so no entity ever has it, and no quoted tag is read as it.
+     */
+    static final int ANY_VERSION = productService.ANY_VERSION;// the same as categoryService.ANY_VERSION
+
+    private etags() {
+    }
+
+    /**
+     * @param version an entity version or an aggregate version string.
+     * @return the quoted entity tag for it.
+     */
+    static String of(Object version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @param version an entity version or an aggregate version string.
+     * @return the quoted entity tag for the gzip-encoded body of that version.
+     */
+    static String ofGzip(Object version) {
+        return of(version, GZIP);
+    }
+
+    /**
+     * @param version        an entity version or an aggregate version string.
+     * @param representation {@code gzip}, {@code cbor} or {@code smile}.
+     * @return the quoted entity tag for that representation of the body of that version.
+     */
+    static String of(Object version, String representation) {
+        return "\"" + version + "-" + representation + "\"";
+    }
+
+    /**
+     * Tells whether an {@code If-None-Match} header names a tag, so the client's copy is current.
+     * <p>
+     * {@code If-None-Match} uses weak comparison: a {@code W/} prefix is ignored.
+     * </p>
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header, or {@code null} if absent.
+     * @param tag a quoted entity tag from one of the {@code of} methods.
+     * @return whether the header lists the tag or is {@code *}.
+     */
+    static boolean listed(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String t = candidate.trim();
+            if (t.startsWith("W/")) {
+                t = t.substring(2);
+            }
+            if (t.equals(tag) || t.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the entity version a conditional update is made against.
+     * <p>
+     * {@code If-Match} requires strong comparison, so a weak tag or a tag that is not a version of this
+     * entity (including a negative number) can never match. {@code *} matches any version of an entity
+     * that exists, so an update of a missing entity under it fails the precondition rather than being
+     * a 404 (RFC 9110, section 13.1.1).
+     * </p>
+     * <p>
+     * A list matches if any of its tags does. Its tags may name the same version in several
+     * representations (e.g. {@code "3", "3-gzip"}); a list naming two different versions is rejected
+     * with 412 on purpose: updates are conditional on a single version, and a client holds only one.
+     * </p>
+     *
+     * @param ifMatch the {@code If-Match} header, or {@code null} if absent.
+     * @return the version, {@link #ANY_VERSION} for {@code *}, or {@code null} for no header.
+     * @throws customException.PreconditionFailedException if the header cannot match any version.
+     */
+    static Integer versionOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return ANY_VERSION;
+        }
+        Integer matched = null;
+        for (String candidate : ifMatch.split(",")) {
+            Integer version = parse(candidate.trim());
+            if (version == null) {
+                continue;// a weak or foreign tag matches nothing, but another tag in the list still may
+            }
+            if (matched != null && !matched.equals(version)) {
+                throw new customException.PreconditionFailedException("If-Match " + ifMatch.trim() + " names more than one version");
+            }
+            matched = version;
+        }
+        if (matched == null) {
+            throw new customException.PreconditionFailedException("If-Match " + ifMatch.trim() + " does not match the current version");
+        }
+        return matched;
+    }
+
+    // the version a strong tag from one of the of methods names, or null for any other tag
+    private static Integer parse(String tag) {
+        if (tag.length() <= 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        String version = tag.substring(1, tag.length() - 1);
+        for (String suffix : SUFFIXES) {
+            if (version.endsWith(suffix)) {
+                version = version.substring(0, version.length() - suffix.length());
+                break;
+            }
+        }
+        try {
+            int parsed = Integer.parseInt(version);
+            return parsed >= 0 ? parsed : null;// a negative one would read as ANY_VERSION
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
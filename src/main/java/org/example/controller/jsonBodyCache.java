@@ -0,0 +1,281 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.config.cacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps response JSON, as sent to clients, so repeat reads skip Jackson and compression.
+ *
+ * <p>
+ * Single products and categories live in the {@value cacheConfig#PRODUCT_JSON} and
+ * {@value cacheConfig#CATEGORY_JSON} caches, one entry per ID; the category list lives in
+ * {@value cacheConfig#CATEGORY_LIST_JSON}. Every entry remembers the version it was serialized from (an
+ * entity version, or the aggregate version of a list); an entry for another version than the one being
+ * returned is replaced, so a stale body is never sent. The services also evict an entity's entry when
+ * they update or delete it.
+ * </p>
+ *
+ * <p>
+ * When a client accepts gzip and response compression is on ({@code server.compression.enabled}), the
+ * gzip form of a body of at least {@code server.compression.min-response-size} bytes is made once per
+ * entry and served with {@code Content-Encoding: gzip}, if it is smaller. The server's own compression
+ * leaves such responses alone, so a cached body is compressed once per version rather than once per request.
+ * </p>
+ *
+ * <p>
+ * Clients whose {@code Accept} prefers CBOR or Smile (see {@link org.example.config.binaryFormatsConfig})
+ * get that form instead, transcoded from the cached JSON once per entry and format. Binary bodies are
+ * not gzipped.
+ * </p>
+ *
+ * <p>
+ * Responses are {@code byte[]} bodies, which Spring copies to the servlet output stream as they are,
+ * with headers built once per entry and form. The ETag is the entity version, with a {@code -gzip},
+ * {@code -cbor} or {@code -smile} suffix on the other forms (see {@link etags}); responses vary by
+ * {@code Accept} and {@code Accept-Encoding}.
+ * </p>
+ */
+@Component
+public class jsonBodyCache {
+
+    private static final String GZIP = "gzip";
+    private static final String CBOR = "cbor";
+    private static final String SMILE = "smile";
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /** One representation of a body, with its response headers. */
+    record form(byte[] body, HttpHeaders headers) {
+    }
+
+    /** The JSON of one version and, made on first request, its gzip, CBOR and Smile forms. */
+    static final class entry {
+        final Object version;
+        final form json;
+        private final ConcurrentMap<String, form> others = new ConcurrentHashMap<>(4);
+
+        entry(Object version, byte[] json) {
+            this.version = version;
+            this.json = new form(json, headers(etags.of(version), MediaType.APPLICATION_JSON, null));
+        }
+
+        form other(String name, Function<byte[], form> make) {
+            form f = others.get(name);// lock-free once made
+            return f != null ? f : others.computeIfAbsent(name, n -> make.apply(json.body()));
+        }
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired(required = false)
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired(required = false)
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Value("${server.compression.enabled:false}")
+    private boolean compress;
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize minCompressSize = DataSize.ofKilobytes(2);
+
+    /**
+     * Builds the response for a body, from the cached JSON of its version when there is one.
+     * <p>
+     * If the request's {@code If-None-Match} names this version, in the representation the client asks
+     * for, the answer is 304 Not Modified and the body is neither loaded nor serialized.
+     * </p>
+     *
+     * @param cacheName one of the JSON caches named in {@link cacheConfig}
+     * @param key       the entry key, e.g. the entity ID
+     * @param version   the version of the body, also the ETag
+     * @param body      supplies the body; only called, and serialized, if this version is not cached
+     * @param request   the request, for its {@code Accept}, {@code Accept-Encoding} and {@code If-None-Match} headers
+     * @return the response: CBOR or Smile if {@code Accept} prefers one of them, otherwise JSON, gzip-encoded
+     *         when the client accepts that and it is smaller.
+     */
+    public ResponseEntity<byte[]> ok(String cacheName, Object key, Object version, Supplier<?> body, WebRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        String binary = binaryFormat(request.getHeader(HttpHeaders.ACCEPT));
+        if (binary != null) {
+            String tag = etags.of(version, binary);
+            if (etags.listed(ifNoneMatch, tag)) {
+                return notModified(tag);
+            }
+            form f = entry(cacheName, key, version, body).other(binary, json ->
+                    new form(transcode(json, mapperFor(binary)), headers(tag, mediaTypeOf(binary), null)));
+            return new ResponseEntity<>(f.body(), f.headers(), HttpStatus.OK);
+        }
+        for (String tag : new String[]{etags.of(version), etags.ofGzip(version)}) {
+            if (etags.listed(ifNoneMatch, tag)) {
+                return notModified(tag);
+            }
+        }
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        entry e = entry(cacheName, key, version, body);
+        if (compress && e.json.body().length >= minCompressSize.toBytes() && acceptsGzip(acceptEncoding)) {
+            form gzip = e.other(GZIP, json -> {
+                byte[] g = gzip(json);
+                return g.length < json.length ? new form(g, headers(etags.ofGzip(version), MediaType.APPLICATION_JSON, GZIP)) : e.json;
+            });
+            return new ResponseEntity<>(gzip.body(), gzip.headers(), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(e.json.body(), e.json.headers(), HttpStatus.OK);
+    }
+
+    entry entry(String cacheName, Object key, Object version, Supplier<?> body) {
+        Cache cache = cacheManager.getCache(cacheName);
+        entry e = cache == null ? null : cache.get(key, entry.class);
+        if (e == null || !e.version.equals(version)) {
+            try {
+                e = new entry(version, objectMapper.writeValueAsBytes(body.get()));
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException("Could not serialize " + cacheName + " " + key, ex);
+            }
+            if (cache != null) {
+                cache.put(key, e);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Picks the binary format a client prefers over JSON, going by {@code Accept} quality and specificity.
+     * Formats without a converter in this application do not count.
+     *
+     * @param accept an {@code Accept} header, or {@code null}
+     * @return {@code cbor} or {@code smile}, or {@code null} for JSON (also for a missing or malformed header).
+     */
+    String binaryFormat(String accept) {
+        if (accept == null || !(accept.contains(CBOR) || accept.contains(SMILE))) {
+            return null;// every browser and JSON client
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(types);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        for (MediaType type : types) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return null;
+            }
+            if (cborConverter != null && type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return CBOR;
+            }
+            if (smileConverter != null && type.isCompatibleWith(APPLICATION_SMILE)) {
+                return SMILE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param acceptEncoding an {@code Accept-Encoding} header, or {@code null}
+     * @return whether it lists gzip without {@code q=0}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase(GZIP)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException ignored) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);// cannot happen writing to memory
+        }
+        return out.toByteArray();
+    }
+
+    /** Copies JSON into another Jackson format token by token, without binding it to objects. */
+    private byte[] transcode(byte[] json, ObjectMapper to) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = objectMapper.createParser(json);
+             JsonGenerator generator = to.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);// the JSON was written by objectMapper
+        }
+        return out.toByteArray();
+    }
+
+    private ObjectMapper mapperFor(String format) {
+        return format.equals(CBOR) ? cborConverter.getObjectMapper() : smileConverter.getObjectMapper();
+    }
+
+    private static MediaType mediaTypeOf(String format) {
+        return format.equals(CBOR) ? MediaType.APPLICATION_CBOR : APPLICATION_SMILE;
+    }
+
+    private static ResponseEntity<byte[]> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
+    }
+
+    private static HttpHeaders headers(String etag, MediaType contentType, String contentEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        headers.setVary(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+        headers.setETag(etag);
+        if (contentEncoding != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+}
@@ -1,17 +1,38 @@
 
 package org.example.controller;
 
+import org.example.config.cacheConfig;
+import org.example.dto.bulkImportResultDTO;
+import org.example.dto.productBatchDTO;
+import org.example.dto.productBatchGetRequestDTO;
+import org.example.dto.productFieldsDTO;
+import org.example.dto.productPageDTO;
 import org.example.dto.productPatchDTO;
 import org.example.dto.productRequestDTO;
+import org.example.dto.productSearchResultDTO;
 import org.example.exception.customException;
 import org.example.exception.errorResponse;
 import org.example.model.Product;
 import org.example.services.productService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,32 +45,141 @@ import java.util.Set;
 @RequestMapping("/api")
 
 public class productController {
+    /** Response header carrying the cursor of the next page of products. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // flush after the first row so the client sees bytes before the query finishes, then in blocks
+    private static final int EXPORT_FLUSH_EVERY = 256;
+
     @Autowired
     private productService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private jsonBodyCache bodyCache;
     /**
-     * Retrieves all products.
+     * Retrieves one page of products, ordered by ID or by price, optionally filtered by category and price range.
+     * <p>
+     * The body is a JSON array of at most {@code limit} products. When more products follow,
+     * the opaque cursor for the next page is returned in the {@code X-Next-Cursor} header;
+     * pass it back as {@code after}, with the same filters and sort, to continue.
+     * With {@code fields}, e.g. {@code fields=id,price}, each product carries only those fields.
+     * </p>
      *
-     * @return ResponseEntity containing a list of all products,
-     *         or a message if no products are available.
+     * @param limit the page size (1 to 500, default 50).
+     * @param after the cursor returned with the previous page; omit for the first page.
+     * @param categoryId only list products of this category.
+     * @param minPrice only list products costing at least this much.
+     * @param maxPrice only list products costing at most this much.
+     * @param sort {@code id} (default) or {@code price}; both ascending, price ties ordered by ID.
+     * @param fields the fields to return, comma-separated, from {@code id}, {@code name} and {@code price};
+     *               omit for whole products. Only those columns are read from the database.
+     * @return ResponseEntity containing the page of products.
+     * @throws customException.ValidationException if the limit, price range, sort or fields are invalid, or the cursor is malformed.
      */
     @GetMapping("/products")
-    public ResponseEntity<List<Product>> getProducts() {
-        List<Product> products = productService.getAllProducts();
-//        if (products.isEmpty()) {
-//            return ResponseEntity.ok(Map.of("message", "No products available to display"));
-//        }
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<?>> getProducts(@RequestParam(defaultValue = "50") int limit,
+                                               @RequestParam(required = false) String after,
+                                               @RequestParam(required = false) Integer categoryId,
+                                               @RequestParam(required = false) Integer minPrice,
+                                               @RequestParam(required = false) Integer maxPrice,
+                                               @RequestParam(defaultValue = "id") String sort,
+                                               @RequestParam(required = false) String fields) {
+        productPageDTO<?> page = fields == null
+                ? productService.getProductsPage(categoryId, minPrice, maxPrice, sort, after, limit)
+                : productService.getProductFieldsPage(productService.parseFields(fields, productFieldsDTO.FIELDS),
+                        categoryId, minPrice, maxPrice, sort, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+    /**
+     * Searches product names, ignoring case, and returns one page of ranked matches.
+     * <p>
+     * Served from an in-memory index without querying the database. Queries of three or more characters
+     * match anywhere in a name; shorter ones match the start of a name.
+     * </p>
+     *
+     * @param q the text to look for.
+     * @param limit the page size (1 to 100, default 20).
+     * @param offset the number of ranked matches to skip (offset + limit at most 1000).
+     * @return ResponseEntity containing the matching product IDs and names, and the total number of matches.
+     * @throws customException.ValidationException if the query is blank or the limit or offset is out of range.
+     */
+    @GetMapping("/products/search")
+    public ResponseEntity<productSearchResultDTO> searchProducts(@RequestParam(required = false) String q,
+                                                                 @RequestParam(defaultValue = "20") int limit,
+                                                                 @RequestParam(defaultValue = "0") int offset) {
+        return ResponseEntity.ok(productService.searchProducts(q, offset, limit));
+    }
+    /**
+     * Exports the whole catalog as newline-delimited JSON, one product per line, in ID order.
+     * <p>
+     * The body is streamed from a database cursor on an async thread and flushed as rows are read,
+     * so the first bytes arrive before the query has finished and heap use does not grow with the catalog.
+     * </p>
+     *
+     * @return a streaming body writing {@code application/x-ndjson}.
+     */
+    @GetMapping(value = "/products/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = out -> {
+            JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+            gen.setRootValueSeparator(null);// lines are terminated explicitly below
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            long[] written = {0};
+            try {
+                productService.exportProducts(product -> {
+                    try {
+                        writer.writeValue(gen, product);
+                        gen.writeRaw('\n');
+                        if (++written[0] % EXPORT_FLUSH_EVERY == 1) {
+                            gen.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {// client went away mid-export
+                throw e.getCause();
+            }
+            gen.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
     /**
      * Retrieves a product by its ID.
+     * The ETag is the product's version; a matching {@code If-None-Match} gets 304 Not Modified
+     * and no body is sent. The JSON of each product version is serialized once and then served
+     * from {@link jsonBodyCache}, gzip-encoded if the client accepts that.
      *
      * @param id the ID of the product to retrieve.
-     * @return ResponseEntity containing the requested product.
+     * @param request the request, for its {@code Accept}, {@code Accept-Encoding} and {@code If-None-Match} headers.
+     * @return ResponseEntity containing the requested product as JSON, or as CBOR or Smile if {@code Accept} prefers one.
      */
     @GetMapping("/products/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable int id) {
+    public ResponseEntity<byte[]> getProduct(@PathVariable int id, WebRequest request) {
         Product product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        return bodyCache.ok(cacheConfig.PRODUCT_JSON, id, product.getVersion(), () -> product, request);
+    }
+    /**
+     * Retrieves many products by ID in one request, e.g. every product of a cart.
+     * <p>
+     * Products are resolved from the product cache and one {@code IN} query, so the cost does not grow
+     * by a database round trip per ID. IDs that match no product are listed in {@code missing} instead
+     * of failing the request; both lists keep the order of {@code ids}.
+     * </p>
+     *
+     * @param dto the IDs to look up (1 to 500).
+     * @return ResponseEntity containing the products found and the IDs not found.
+     */
+    @PostMapping("/products/batch-get")
+    public ResponseEntity<productBatchDTO> getProductsByIds(@Valid @RequestBody productBatchGetRequestDTO dto) {
+        return ResponseEntity.ok(productService.getProductsByIds(dto.getIds()));
     }
     /**
      * Adds a new product with the details provided in the request body.
@@ -69,24 +199,74 @@ public class productController {
         Product savedProduct = productService.createProduct(dto);
         return ResponseEntity.status(201).body(savedProduct);
     }
+    /**
+     * Imports many products at once from an array, sent as JSON, CBOR or Smile.
+     * <p>
+     * Rows are validated individually: invalid rows are reported in the response and skipped,
+     * the rest are created. See {@link productService#importProducts(List)}.
+     * </p>
+     *
+     * @param rows the products to create, each with "name", "price" and "categoryId".
+     * @return ResponseEntity with the number of created products and the per-row errors.
+     * @throws customException.ValidationException if the batch is empty or too large.
+     */
+    @PostMapping(value = "/products/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, "application/x-jackson-smile"})
+    public ResponseEntity<bulkImportResultDTO> importProducts(@RequestBody List<productRequestDTO> rows) {
+        return ResponseEntity.ok(productService.importProducts(rows));
+    }
+    /**
+     * Imports many products at once from newline-delimited JSON, one product per line.
+     * <p>
+     * Lines are parsed as they are read, and reading stops one row past {@link productService#MAX_IMPORT_ROWS}:
+     * that is enough for the service to reject the batch, however long the rest of the body is.
+     * </p>
+     *
+     * @param body the request body; every line holds one product object.
+     * @return ResponseEntity with the number of created products and the per-row errors.
+     * @throws customException.ValidationException if a line is not a valid product object, or the batch is empty or too large.
+     */
+    @PostMapping(value = "/products/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<bulkImportResultDTO> importProductsNdjson(InputStream body) throws IOException {
+        List<productRequestDTO> rows = new ArrayList<>();
+        try (MappingIterator<productRequestDTO> it = objectMapper.readerFor(productRequestDTO.class).readValues(body)) {
+            while (rows.size() <= productService.MAX_IMPORT_ROWS && it.hasNextValue()) {
+                rows.add(it.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            String where = e.getLocation() == null ? "" : " at line " + e.getLocation().getLineNr();
+            throw new customException.ValidationException("Malformed NDJSON" + where + ": " + e.getOriginalMessage());
+        }
+        return ResponseEntity.ok(productService.importProducts(rows));
+    }
     /**
      * Updates an existing product identified by its ID with the given updates.
+     * <p>
+     * Send the product's ETag as {@code If-Match} to update only if nobody changed it since it was read;
+     * a stale tag gets 412 Precondition Failed. {@code If-Match: *} accepts any version but also gets 412
+     * if the product does not exist. Without the header the update is unconditional.
+     * The response carries the new ETag.
+     * </p>
      *
      * @param id the ID of the product to update.
+     * @param ifMatch the ETag the client last read, or {@code null}.
      * @param updates a map of fields to update; cannot be empty.
      * @return ResponseEntity containing the updated product.
      * @throws customException.ValidationException if no updates are provided.
+     * @throws customException.PreconditionFailedException if the product no longer matches {@code If-Match}.
      */
 
     @PatchMapping("/products/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Integer id, @RequestBody productPatchDTO dto) {
+    public ResponseEntity<Product> updateProduct(@PathVariable Integer id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @RequestBody productPatchDTO dto) {
         if (dto.getName() == null && dto.getPrice() == null && dto.getCategoryId() == null) {
             throw new customException.ValidationException(
                     "At least one field must be provided for update"
             );
         }
-        Product updatedProduct = productService.updateProduct(id, dto);
-        return ResponseEntity.ok(updatedProduct);
+        Product updatedProduct = productService.updateProduct(id, etags.versionOf(ifMatch), dto);
+        return ResponseEntity.ok().eTag(etags.of(updatedProduct.getVersion())).body(updatedProduct);
     }
     /**
      * Deletes the product identified by its ID.
@@ -0,0 +1,35 @@
+package org.example.controller;
+
+import org.example.dto.suggestionDTO;
+import org.example.exception.customException;
+import org.example.services.suggestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for type-ahead suggestions over product and category names.
+ */
+@RestController
+@RequestMapping("/api")
+public class suggestController {
+    @Autowired
+    private suggestService suggestService;
+
+    /**
+     * Completes a typed prefix to the best matching product and category names, ignoring case.
+     * Shorter names come first, then names in alphabetical order.
+     *
+     * @param prefix the text typed so far.
+     * @param limit the maximum number of names to return, between 1 and {@link suggestService#MAX_SUGGESTIONS}.
+     * @return ResponseEntity containing the matching names with their type and ID.
+     * @throws customException.ValidationException if the prefix is blank or the limit is out of range.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<suggestionDTO>> suggest(@RequestParam(required = false) String prefix,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestService.suggest(prefix, limit));
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import: how many rows were inserted and why the others were rejected.
+ *
+ * <p>
+ * Rows are numbered from 1 in the order they were sent (array position or NDJSON line).
+ * A rejected row never prevents the other rows from being imported.
+ * </p>
+ */
+public class bulkImportResultDTO {
+    private final int created;
+    private final List<rowError> errors;
+
+    public bulkImportResultDTO(int created, List<rowError> errors) {
+        this.created = created;
+        this.errors = errors;
+    }
+
+    // getters
+    public int getCreated() { return created; }
+
+    public int getFailed() { return errors.size(); }
+
+    public List<rowError> getErrors() { return errors; }
+
+    /** Why a single row of the import was rejected. */
+    public static class rowError {
+        private final int row;
+        private final String message;
+
+        public rowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        // getters
+        public int getRow() { return row; }
+
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * The requested fields of a category summary, for {@code GET /api/categories?fields=}.
+ *
+ * <p>
+ * Without {@code productCount} the categories are read by a projection of their own columns, without
+ * joining and grouping their products. Fields that were not requested are {@code null} and left out of
+ * the response.
+ * </p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class categoryFieldsDTO {
+    /** The fields that can be requested, in response order; see {@link categorySummaryDTO}. */
+    public static final List<String> FIELDS = List.of("id", "name", "productCount");
+
+    private final Integer id;
+    private final String name;
+    private final Long productCount;
+
+    public categoryFieldsDTO(Integer id, String name, Long productCount) {
+        this.id = id;
+        this.name = name;
+        this.productCount = productCount;
+    }
+
+    public categoryFieldsDTO(Integer id, String name) {
+        this(id, name, null);
+    }
+
+    // getters
+    public Integer getId() { return id; }
+
+    public String getName() { return name; }
+
+    public Long getProductCount() { return productCount; }
+}
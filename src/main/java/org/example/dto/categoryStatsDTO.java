@@ -0,0 +1,39 @@
+package org.example.dto;
+
+/**
+ * Price statistics of the products in one category.
+ *
+ * <p>
+ * {@code minPrice}, {@code maxPrice} and {@code averagePrice} are {@code null} when the category has no products.
+ * </p>
+ */
+public class categoryStatsDTO {
+    private final int id;
+    private final String name;
+    private final int productCount;
+    private final Integer minPrice;
+    private final Integer maxPrice;
+    private final Double averagePrice;
+
+    public categoryStatsDTO(int id, String name, int productCount, Integer minPrice, Integer maxPrice, Double averagePrice) {
+        this.id = id;
+        this.name = name;
+        this.productCount = productCount;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.averagePrice = averagePrice;
+    }
+
+    // getters
+    public int getId() { return id; }
+
+    public String getName() { return name; }
+
+    public int getProductCount() { return productCount; }
+
+    public Integer getMinPrice() { return minPrice; }
+
+    public Integer getMaxPrice() { return maxPrice; }
+
+    public Double getAveragePrice() { return averagePrice; }
+}
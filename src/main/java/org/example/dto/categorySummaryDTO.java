@@ -0,0 +1,28 @@
+package org.example.dto;
+
+/**
+ * Lightweight read model of a category: its ID, name and the number of products in it.
+ *
+ * <p>
+ * Built directly by a JPQL constructor expression, so reading it never loads
+ * the category's products.
+ * </p>
+ */
+public class categorySummaryDTO {
+    private final int id;
+    private final String name;
+    private final long productCount;
+
+    public categorySummaryDTO(int id, String name, long productCount) {
+        this.id = id;
+        this.name = name;
+        this.productCount = productCount;
+    }
+
+    // getters
+    public int getId() { return id; }
+
+    public String getName() { return name; }
+
+    public long getProductCount() { return productCount; }
+}
@@ -0,0 +1,27 @@
+package org.example.dto;
+
+import org.example.model.Product;
+
+import java.util.List;
+
+/**
+ * The products found for a list of IDs, and the IDs that were not found.
+ *
+ * <p>
+ * Both lists follow the order of the requested IDs; an ID requested twice is reported once.
+ * </p>
+ */
+public class productBatchDTO {
+    private final List<Product> items;
+    private final List<Integer> missing;
+
+    public productBatchDTO(List<Product> items, List<Integer> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+
+    // getters
+    public List<Product> getItems() { return items; }
+
+    public List<Integer> getMissing() { return missing; }
+}
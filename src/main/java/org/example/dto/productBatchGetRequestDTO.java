@@ -0,0 +1,24 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * The product IDs to resolve in one {@code POST /api/products/batch-get}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = false)
+public class productBatchGetRequestDTO {
+    /** Most IDs one request may ask for; keeps the {@code IN} list within JDBC parameter limits. */
+    public static final int MAX_IDS = 500;
+
+    @NotEmpty(message = "At least one product ID is required")
+    @Size(max = MAX_IDS, message = "At most " + MAX_IDS + " product IDs can be requested at once")
+    private List<@NotNull(message = "Product IDs cannot be null") Integer> ids;
+
+    public List<Integer> getIds() { return ids; }
+    public void setIds(List<Integer> ids) { this.ids = ids; }
+}
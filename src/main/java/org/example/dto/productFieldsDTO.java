@@ -0,0 +1,36 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * The requested fields of a product, for reads with {@code fields=}.
+ *
+ * <p>
+ * Built from a projection query that reads only the requested columns, so no {@link org.example.model.Product}
+ * entity is loaded. Fields that were not requested are {@code null} and left out of the response.
+ * </p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class productFieldsDTO {
+    /** The fields that can be requested, in response order; each is also the product attribute it is read from. */
+    public static final List<String> FIELDS = List.of("id", "name", "price");
+
+    private final Integer id;
+    private final String name;
+    private final Integer price;
+
+    public productFieldsDTO(Integer id, String name, Integer price) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+    }
+
+    // getters
+    public Integer getId() { return id; }
+
+    public String getName() { return name; }
+
+    public Integer getPrice() { return price; }
+}
@@ -0,0 +1,35 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * The ID and name of a product, without its price or category.
+ *
+ * <p>
+ * Read by a JPQL constructor expression when the name indexes are loaded, together with the product's
+ * version, and returned without it as a search hit.
+ * </p>
+ */
+public class productNameDTO {
+    private final int id;
+    private final int version;
+    private final String name;
+
+    public productNameDTO(int id, String name) {
+        this(id, 0, name);
+    }
+
+    public productNameDTO(int id, int version, String name) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+    }
+
+    // getters
+    public int getId() { return id; }
+
+    @JsonIgnore// only tells the indexes which changes they have seen
+    public int getVersion() { return version; }
+
+    public String getName() { return name; }
+}
@@ -0,0 +1,26 @@
+package org.example.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of products, as {@link org.example.model.Product} entities or as {@link productFieldsDTO}s.
+ *
+ * <p>
+ * {@code nextCursor} is an opaque token to pass back as {@code after} to fetch the following page;
+ * it is {@code null} when this is the last page.
+ * </p>
+ */
+public class productPageDTO<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public productPageDTO(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // getters
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+}
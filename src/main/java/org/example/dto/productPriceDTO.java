@@ -0,0 +1,31 @@
+package org.example.dto;
+
+/**
+ * The ID, version, category ID and price of a product, without its name.
+ *
+ * <p>
+ * Read by a JPQL constructor expression when the category statistics are loaded.
+ * </p>
+ */
+public class productPriceDTO {
+    private final int id;
+    private final int version;
+    private final Integer categoryId;
+    private final int price;
+
+    public productPriceDTO(int id, int version, Integer categoryId, int price) {
+        this.id = id;
+        this.version = version;
+        this.categoryId = categoryId;
+        this.price = price;
+    }
+
+    // getters
+    public int getId() { return id; }
+
+    public int getVersion() { return version; }
+
+    public Integer getCategoryId() { return categoryId; }
+
+    public int getPrice() { return price; }
+}
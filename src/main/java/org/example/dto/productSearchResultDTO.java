@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import java.util.List;
+
+/**
+ * One page of product name search results.
+ *
+ * <p>
+ * {@code total} counts every product matching the query, not only those on this page.
+ * </p>
+ */
+public class productSearchResultDTO {
+    private final int total;
+    private final List<productNameDTO> items;
+
+    public productSearchResultDTO(int total, List<productNameDTO> items) {
+        this.total = total;
+        this.items = items;
+    }
+
+    // getters
+    public int getTotal() { return total; }
+
+    public List<productNameDTO> getItems() { return items; }
+}
@@ -0,0 +1,30 @@
+package org.example.dto;
+
+/**
+ * A product or category name offered as a completion of a typed prefix.
+ *
+ * <p>
+ * {@code type} says which table {@code id} belongs to: {@value #PRODUCT} or {@value #CATEGORY}.
+ * </p>
+ */
+public class suggestionDTO {
+    public static final String PRODUCT = "product";
+    public static final String CATEGORY = "category";
+
+    private final String name;
+    private final String type;
+    private final int id;
+
+    public suggestionDTO(String name, String type, int id) {
+        this.name = name;
+        this.type = type;
+        this.id = id;
+    }
+
+    // getters
+    public String getName() { return name; }
+
+    public String getType() { return type; }
+
+    public int getId() { return id; }
+}
@@ -0,0 +1,40 @@
+package org.example.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Helpers for turning database constraint violations into domain errors.
+ *
+ * <p>
+ * Services let the database enforce uniqueness and foreign keys instead of querying first,
+ * then use {@link #violates(DataIntegrityViolationException, String)} to find out which
+ * constraint rejected the write and throw the matching {@link customException}.
+ * </p>
+ */
+public final class constraintViolations {
+
+    private constraintViolations() {}
+
+    /**
+     * Checks whether a write failed because of the named constraint.
+     * <p>
+     * Drivers report the constraint name differently (H2 appends the index name and columns,
+     * MySQL quotes it), so the comparison is a case-insensitive containment check.
+     * </p>
+     *
+     * @param ex the exception thrown by the repository
+     * @param constraintName the constraint name as declared on the entity
+     * @return true if the violated constraint is the named one
+     */
+    public static boolean violates(DataIntegrityViolationException ex, String constraintName) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && cve.getConstraintName() != null) {
+                return cve.getConstraintName().toLowerCase(Locale.ROOT).contains(constraintName.toLowerCase(Locale.ROOT));
+            }
+        }
+        return false;
+    }
+}
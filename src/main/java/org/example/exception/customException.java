@@ -3,8 +3,33 @@ package org.example.exception;
  * A container class for custom runtime exceptions used across the application
  * to represent specific error conditions related to validation, resource existence,
  * and duplication.
+ *
+ * <p>
+ * These exceptions describe expected outcomes of a request (an unknown ID, a taken name) and are turned
+ * into responses by {@link globalexceptionHandler}, which never looks at their stack traces. So by default
+ * they do not capture one: filling in the stack is most of the cost of creating an exception, and a client
+ * probing for missing IDs would otherwise pay it on every request. Set {@code app.exceptions.stack-traces=true}
+ * ({@code EXCEPTION_STACK_TRACES}) to capture them again while debugging; it is applied by
+ * {@link org.example.config.exceptionsConfig}.
+ * </p>
  */
 public class customException {
+
+    private static volatile boolean captureStackTraces = false;
+
+    /**
+     * Turns stack-trace capture on or off for exceptions created from now on.
+     *
+     * @param capture whether new exceptions record where they were thrown.
+     */
+    public static void setCaptureStackTraces(boolean capture) {
+        captureStackTraces = capture;
+    }
+
+    /** @return whether new exceptions record where they were thrown. */
+    public static boolean isCaptureStackTraces() {
+        return captureStackTraces;
+    }
     /**
      * Exception thrown when input validation fails or invalid data is encountered.
      */
@@ -14,7 +39,7 @@ public class customException {
          *
          * @param msg the detail message explaining the validation error.
          */
-        public ValidationException(String msg) { super(msg); }
+        public ValidationException(String msg) { super(msg, null, captureStackTraces, captureStackTraces); }
     }
     /**
      * Exception thrown when a requested resource (e.g., entity or record) is not found.
@@ -25,7 +50,7 @@ public class customException {
          *
          * @param msg the detail message indicating which resource was not found.
          */
-        public ResourceNotFoundException(String msg) { super(msg); }
+        public ResourceNotFoundException(String msg) { super(msg, null, captureStackTraces, captureStackTraces); }
     }
     /**
      * Exception thrown when attempting to create or update a resource
@@ -37,6 +62,18 @@ public class customException {
          *
          * @param msg the detail message describing the duplication conflict.
          */
-        public DuplicateResourceException(String msg) { super(msg); }
+        public DuplicateResourceException(String msg) { super(msg, null, captureStackTraces, captureStackTraces); }
+    }
+    /**
+     * Exception thrown when a conditional update names a version ({@code If-Match})
+     * that is no longer the current version of the resource.
+     */
+    public static class PreconditionFailedException extends RuntimeException {
+        /**
+         * Constructs a new PreconditionFailedException with the specified detail message.
+         *
+         * @param msg the detail message describing the version mismatch.
+         */
+        public PreconditionFailedException(String msg) { super(msg, null, captureStackTraces, captureStackTraces); }
     }
 }
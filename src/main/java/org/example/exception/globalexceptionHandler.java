@@ -14,26 +14,36 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
  * This class handles specific custom exceptions and general exceptions,
  * providing consistent HTTP responses with meaningful error messages and status codes.
  * It uses @RestControllerAdvice to intercept exceptions thrown by controllers globally.
+ *
+ * <p>
+ * The 404 and 409 answers, which clients with stale or guessed IDs and names trigger most often, are
+ * written from pre-serialized JSON ({@link jsonErrorBody}); the body is the same as that of the other
+ * handlers' {@link errorResponse}.
+ * </p>
+ *
+ * <p>
+ * Error bodies are always JSON, whatever the request's {@code Accept} asks for: a client that reads CBOR or
+ * Smile on success still gets every error in the one format, and a request accepting only a binary format
+ * gets its error rather than a 406.
+ * </p>
  */
 @RestControllerAdvice
 public class globalexceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<errorResponse> handleValidation(MethodArgumentNotValidException ex) {
         String errorMsg = ex.getBindingResult().getAllErrors().get(0).getDefaultMessage();
-        errorResponse error = new errorResponse(errorMsg, 400);
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return json(HttpStatus.BAD_REQUEST, errorMsg);
     }
     /**
      * Handles ResourceNotFoundException and returns a 404 Not Found response.
      *
      * @param ex the ResourceNotFoundException instance
-     * @return a ResponseEntity containing the error details and HTTP status 404
+     * @return a ResponseEntity containing the serialized error details and HTTP status 404
      */
 
     @ExceptionHandler(customException.ResourceNotFoundException.class)
-    public ResponseEntity<errorResponse> handleNotFound(customException.ResourceNotFoundException ex) {
-        errorResponse error = new errorResponse(ex.getMessage(), HttpStatus.NOT_FOUND.value());
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    public ResponseEntity<byte[]> handleNotFound(customException.ResourceNotFoundException ex) {
+        return jsonErrorBody.NOT_FOUND.response(ex.getMessage());
     }
     /**
      * Handles ValidationException and returns a 400 Bad Request response.
@@ -43,19 +53,27 @@ public class globalexceptionHandler {
      */
     @ExceptionHandler(customException.ValidationException.class)
     public ResponseEntity<errorResponse> handleValidation(customException.ValidationException ex) {
-        errorResponse error = new errorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return json(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
     /**
      * Handles DuplicateResourceException and returns a 409 Conflict response.
      *
      * @param ex the DuplicateResourceException instance
-     * @return a ResponseEntity containing the error details and HTTP status 409
+     * @return a ResponseEntity containing the serialized error details and HTTP status 409
      */
     @ExceptionHandler(customException.DuplicateResourceException.class)
-    public ResponseEntity<errorResponse> handleDuplicate(customException.DuplicateResourceException ex) {
-        errorResponse error = new errorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
-        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    public ResponseEntity<byte[]> handleDuplicate(customException.DuplicateResourceException ex) {
+        return jsonErrorBody.CONFLICT.response(ex.getMessage());
+    }
+    /**
+     * Handles PreconditionFailedException and returns a 412 Precondition Failed response.
+     *
+     * @param ex the PreconditionFailedException instance
+     * @return a ResponseEntity containing the error details and HTTP status 412
+     */
+    @ExceptionHandler(customException.PreconditionFailedException.class)
+    public ResponseEntity<errorResponse> handlePreconditionFailed(customException.PreconditionFailedException ex) {
+        return json(HttpStatus.PRECONDITION_FAILED, ex.getMessage());
     }
 
     /**
@@ -69,8 +87,7 @@ public class globalexceptionHandler {
     @ExceptionHandler(NoHandlerFoundException.class)
     public ResponseEntity<errorResponse> handleNoHandler(NoHandlerFoundException ex) {
         String message = "No resource found at " + ex.getRequestURL();
-        errorResponse error = new errorResponse(message, 404);
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+        return json(HttpStatus.NOT_FOUND, message);
     }
 
 
@@ -93,20 +110,18 @@ public class globalexceptionHandler {
         String msg = ex.getMessage();
 
         if (msg != null && (msg.contains("Required request body is missing") || msg.contains("No content to map"))) {
-            return ResponseEntity.badRequest()
-                    .body(new errorResponse("Request body is missing or empty", 400));
+            return json(HttpStatus.BAD_REQUEST, "Request body is missing or empty");
         }
         Throwable cause = ex.getCause();
         //for extra fields if entered
         if (cause instanceof com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException) {
             String property = ((com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException) cause).getPropertyName();
             String message = "Invalid request. Property '" + property + "' is not allowed.";
-            return ResponseEntity.badRequest().body(new errorResponse(message, 400));
+            return json(HttpStatus.BAD_REQUEST, message);
         }
         // Fallback for other malformed JSON
         else{
-            errorResponse error = new errorResponse("Something went wrong: " + ex.getMessage(), 500);
-            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+            return json(HttpStatus.INTERNAL_SERVER_ERROR, "Something went wrong: " + ex.getMessage());
         }
     }
     /**
@@ -119,8 +134,14 @@ public class globalexceptionHandler {
 //handles other exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<errorResponse> handleGeneric(Exception ex) {
-        errorResponse error = new errorResponse("Something went wrong: " + ex.getMessage(), 500);
-        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        return json(HttpStatus.INTERNAL_SERVER_ERROR, "Something went wrong: " + ex.getMessage());
+    }
+
+    // a preset content type skips content negotiation, so the JSON converter writes the body
+    private static ResponseEntity<errorResponse> json(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new errorResponse(message, status.value()));
     }
 
 }
\ No newline at end of file
@@ -74,24 +74,44 @@
 //}
 package org.example.model;
 
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
-@Table(name="categories")
+@Table(name="categories",
+        uniqueConstraints = @UniqueConstraint(name = Category.NAME_KEY_CONSTRAINT, columnNames = "name_key"))
 public class Category {
 
+    /** Unique constraint that makes category names case-insensitively unique. */
+    public static final String NAME_KEY_CONSTRAINT = "uk_categories_name_key";
+
+    /** Sequence the category IDs are drawn from. */
+    public static final String ID_SEQUENCE = "categories_seq";
+
+    // sequence rather than IDENTITY so category inserts can be batched like product inserts
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @pooledSequence(ID_SEQUENCE)
     private int id;
 
     @Column
     private String name;
 
+    // lower-cased copy of name; its unique constraint replaces a case-insensitive lookup before writes
+    @Column(name = "name_key", nullable = false)
+    @JsonIgnore
+    private String nameKey;
+
+    // bumped by Hibernate on every update; checked on write (optimistic locking) and served as the ETag
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    private int version;
+
     @OneToMany(mappedBy = "category") // 'category' is the field in the Product class
-    @JsonManagedReference
+    @JsonIgnore // never serialized: listing products is the paginated /api/categories/{id}/products
     private Set<Product> products;
 
     // Default no-argument constructor required by JPA
@@ -119,6 +139,14 @@ public class Category {
         this.name = name;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public Set<Product> getProducts() {
         return products;
     }
@@ -126,4 +154,20 @@ public class Category {
     public void setProducts(Set<Product> products) {
         this.products = products;
     }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        this.nameKey = nameKey(name);
+    }
+
+    /**
+     * Returns the normalized form of a category name stored in {@code name_key}.
+     *
+     * @param name the category name
+     * @return the trimmed, lower-cased name
+     */
+    public static String nameKey(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -123,28 +123,65 @@
 //}
 package org.example.model;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.util.Locale;
+
 @Entity
-@Table(name="products")
+@Table(name="products",
+        uniqueConstraints = @UniqueConstraint(name = Product.NAME_KEY_CONSTRAINT, columnNames = "name_key"),
+        indexes = {
+                // keyset pages of a category by price (and price ranges within it)
+                @Index(name = Product.CATEGORY_PRICE_INDEX, columnList = "categoryId, price, id"),
+                // keyset pages of all products by price
+                @Index(name = Product.PRICE_INDEX, columnList = "price, id")
+        })
 public class Product {
 
+    /** Unique constraint that makes product names case-insensitively unique. */
+    public static final String NAME_KEY_CONSTRAINT = "uk_products_name_key";
+
+    /** Foreign key from products to their category. */
+    public static final String CATEGORY_FK = "fk_products_category";
+
+    /** Index serving price-ordered and price-filtered listings of one category. */
+    public static final String CATEGORY_PRICE_INDEX = "idx_products_category_price";
+
+    /** Index serving price-ordered and price-filtered listings across categories. */
+    public static final String PRICE_INDEX = "idx_products_price";
+
+    /** Sequence the product IDs are drawn from. */
+    public static final String ID_SEQUENCE = "products_seq";
+
+    // sequence rather than IDENTITY: Hibernate can only batch inserts whose IDs it knows before the insert
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @pooledSequence(ID_SEQUENCE)
     private int id;
 
-    @ManyToOne
-    @JoinColumn(name = "categoryId", referencedColumnName = "id") // foreign key for categoryId
-    @JsonBackReference
+    @ManyToOne(fetch = FetchType.LAZY) // never serialized, so don't load it with every row
+    @JoinColumn(name = "categoryId", referencedColumnName = "id", // foreign key for categoryId
+            foreignKey = @ForeignKey(name = CATEGORY_FK))
+    @JsonIgnore
     private Category category; // This will link the product to a Category
 
     @Column
     private String name;
 
+    // lower-cased copy of name; its unique constraint replaces a case-insensitive lookup before insert
+    @Column(name = "name_key", nullable = false)
+    @JsonIgnore
+    private String nameKey;
+
     @Column
     private int price;
 
+    // bumped by Hibernate on every update; checked on write (optimistic locking) and served as the ETag
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    private int version;
+
     // Default no-argument constructor
     public Product() {}
 
@@ -187,4 +224,28 @@ public class Product {
     public void setPrice(int price) {
         this.price = price;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        this.nameKey = nameKey(name);
+    }
+
+    /**
+     * Returns the normalized form of a product name stored in {@code name_key}.
+     *
+     * @param name the product name
+     * @return the trimmed, lower-cased name
+     */
+    public static String nameKey(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,25 @@
+package org.example.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks an {@code int} ID as drawn from a database sequence through the pooled-lo optimizer.
+ *
+ * <p>
+ * Used instead of {@code @GeneratedValue}/{@code @SequenceGenerator} because the allocation size has
+ * to come from configuration rather than from the annotation; see {@link pooledSequenceGenerator}.
+ * </p>
+ */
+@IdGeneratorType(pooledSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface pooledSequence {
+    /** Name of the database sequence. */
+    String value();
+}
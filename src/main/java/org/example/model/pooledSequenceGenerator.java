@@ -0,0 +1,53 @@
+package org.example.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence ID generator for {@link pooledSequence} fields, using the pooled-lo optimizer with a
+ * configurable allocation size.
+ *
+ * <p>
+ * Each call to the sequence reserves a block of IDs, as many as {@value #ALLOCATION_SIZE_SETTING} sets
+ * (default {@value #DEFAULT_ALLOCATION_SIZE}), that are then handed out from memory, so inserts never wait on an ID round trip and can be sent in JDBC batches.
+ * With pooled-lo the sequence value is the first ID of its block and the sequence must be created
+ * with {@code INCREMENT BY} equal to the allocation size. Schema generation does that; on an existing
+ * database, changing the setting requires an {@code ALTER SEQUENCE ... INCREMENT BY} to match
+ * (Hibernate refuses to start on a mismatch rather than hand out overlapping IDs).
+ * </p>
+ */
+public class pooledSequenceGenerator extends SequenceStyleGenerator {
+
+    /** Setting (under {@code spring.jpa.properties}) holding the number of IDs reserved per sequence call. */
+    public static final String ALLOCATION_SIZE_SETTING = "app.id.allocation_size";
+
+    /** Allocation size used when {@value #ALLOCATION_SIZE_SETTING} is not set. */
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    private final String sequenceName;
+
+    public pooledSequenceGenerator(pooledSequence config) {
+        this.sequenceName = config.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        if (allocationSize < 1) {
+            throw new MappingException(ALLOCATION_SIZE_SETTING + " must be at least 1, was " + allocationSize);
+        }
+        parameters.put(SEQUENCE_PARAM, sequenceName);
+        parameters.put(INCREMENT_PARAM, Integer.toString(allocationSize));
+        parameters.put(INITIAL_PARAM, "1");
+        parameters.put(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -1,9 +1,20 @@
 package org.example.repository;
 //spring data jpa repository
 //is required so that no need to write the boilerplate code for db operations
+import org.example.config.cacheConfig;
+import org.example.dto.categoryFieldsDTO;
+import org.example.dto.categorySummaryDTO;
 import org.example.model.Category;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 /**
  * Spring Data JPA repository for {@link Category} entities.
  *
@@ -16,8 +27,13 @@ import org.springframework.stereotype.Repository;
  * Provided methods include:
  * <ul>
  *   <li>Saving, updating, deleting, and finding categories by ID</li>
- *   <li>{@link #existsByNameIgnoreCase(String)}: returns true if a category with the given name exists, case-insensitive</li>
  *   <li>{@link #existsById(int)}: returns true if a category with the specified ID exists</li>
+ *   <li>{@link #findAllSummaries()}: lists every category with its product count in a single grouped query</li>
+ *   <li>{@link #findAllIdsAndNames()}: lists the ID and name of every category without counting products</li>
+ *   <li>{@link #findCachedById(int)}: finds a category by ID through the in-process category cache</li>
+ *   <li>{@link #findExistingIds(Collection)}: finds which of many category IDs exist</li>
+ *   <li>{@link #versionStamp()}: a value that changes whenever any category is created, updated or deleted</li>
+ *   <li>{@link #updateName(int, Integer, String, String)}: renames a category, optionally only at a given version</li>
  * </ul>
  * </p>
  *
@@ -32,13 +48,7 @@ import org.springframework.stereotype.Repository;
 @Repository//spring repo component
 public interface categoryRepository extends JpaRepository<Category,Integer> {//integer is the type of the primary key//category is entity that this repo manages
     // Custom query methods
-    /**
-     * Checks if a category with the given name exists, ignoring case.
-     *
-     * @param name the category name to check
-     * @return true if a category with the specified name exists (case-insensitive), false otherwise
-     */
-    boolean existsByNameIgnoreCase(String name);
+    // (name uniqueness is enforced by the uk_categories_name_key constraint, not by a lookup)
     /**
      * Checks if a category with the given ID exists.
      *
@@ -46,5 +56,81 @@ public interface categoryRepository extends JpaRepository<Category,Integer> {//i
      * @return true if a category with the specified ID exists, false otherwise
      */
     boolean existsById(int id);
+    /**
+     * Lists every category with the number of products it holds, ordered by ID.
+     * <p>
+     * Runs as one grouped query; no product entity is loaded.
+     * </p>
+     *
+     * @return one summary per category
+     */
+    @Query("select new org.example.dto.categorySummaryDTO(c.id, c.name, count(p.id)) "
+            + "from Category c left join c.products p group by c.id, c.name order by c.id")
+    List<categorySummaryDTO> findAllSummaries();
+    /**
+     * Lists the ID and name of every category, ordered by ID, for reads that do not ask for product counts.
+     * <p>
+     * Reads the two columns of {@code categories} alone: unlike {@link #findAllSummaries()} it neither joins
+     * nor groups the products, and no entity is loaded.
+     * </p>
+     *
+     * @return one row per category, its {@code productCount} {@code null}
+     */
+    @Query("select new org.example.dto.categoryFieldsDTO(c.id, c.name) from Category c order by c.id")
+    List<categoryFieldsDTO> findAllIdsAndNames();
+    /**
+     * Finds a category by ID, reading through the {@value cacheConfig#CATEGORIES} cache.
+     * <p>
+     * Hits are served from memory; misses run the usual primary-key query and cache the result.
+     * Unknown IDs are not cached. The returned instance is shared between callers and must not be
+     * modified; {@code categoryService} writes go through {@link #findById(Object)} and update the
+     * cache themselves.
+     * </p>
+     *
+     * @param id the category ID to look up
+     * @return the category, or empty if no category has that ID
+     */
+    @Cacheable(cacheNames = cacheConfig.CATEGORIES, key = "#p0", unless = "#result == null")
+    Optional<Category> findCachedById(int id);
+    /**
+     * Returns those of the given IDs that belong to a category.
+     * <p>
+     * Resolves every category referenced by an import batch with one {@code IN} query on the
+     * primary key; only the IDs are read, no category entity is loaded.
+     * </p>
+     *
+     * @param ids the category IDs to check
+     * @return the subset of {@code ids} that exist
+     */
+    @Query("select c.id from Category c where c.id in :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
+    /**
+     * Summarizes the state of the whole table as {@code count.sum(id).sum(version)}; see
+     * {@link productRepository#versionStamp()}.
+     *
+     * @return the stamp, e.g. {@code 2.3.0}
+     */
+    @Query("select str(count(c.id)) || '.' || str(coalesce(sum(c.id), 0)) || '.' || str(coalesce(sum(c.version), 0)) from Category c")
+    String versionStamp();
+    /**
+     * Renames a category in a single {@code UPDATE}, without reading it first.
+     * <p>
+     * The version is incremented in the same statement. When {@code version} is given the row is only
+     * updated if it is still at that version, so a concurrent change makes this return 0 instead of
+     * being overwritten. Entity callbacks do not run for bulk updates, so the caller passes the
+     * normalized {@code nameKey} as well.
+     * </p>
+     *
+     * @param id      the ID of the category to rename
+     * @param version the version the caller last read, or {@code null} to update unconditionally
+     * @param name    the new name
+     * @param nameKey the normalized new name (see {@link Category#nameKey(String)})
+     * @return the number of rows updated: 1, or 0 if the category is missing or at another version
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Category c set c.name = :name, c.nameKey = :nameKey, c.version = c.version + 1 "
+            + "where c.id = :id and (:version is null or c.version = :version)")
+    int updateName(int id, Integer version, String name, String nameKey);
 }
 //jpa creates queries based on method names
\ No newline at end of file
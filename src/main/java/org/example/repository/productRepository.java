@@ -1,8 +1,22 @@
 package org.example.repository;
 
+import org.example.config.cacheConfig;
+import org.example.dto.productNameDTO;
+import org.example.dto.productPriceDTO;
 import org.example.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Spring Data JPA repository for {@link Product} entities.
  *
@@ -18,7 +32,16 @@ import org.springframework.stereotype.Repository;
  *   <li>Saving, updating, deleting, and finding products by ID</li>
  *   <li>{@link #existsByName(String)}: checks if a product exists by exact (case-sensitive) name</li>
  *   <li>{@link #existsById(int)}: checks if a product exists by product ID</li>
- *   <li>{@link #existsByNameIgnoreCase(String)}: checks if a product exists by name, ignoring case</li>
+ *   <li>{@link #findCachedById(int)}: finds a product by ID through the in-process product cache</li>
+ *   <li>{@link #findPage(Integer, Integer, Integer, boolean, Integer, int, int)}: reads one keyset page of products, filtered and ordered by ID or price</li>
+ *   <li>{@link #findPageFields(java.util.Collection, Integer, Integer, Integer, boolean, Integer, int, int)}: reads the same page, only the requested columns and without loading entities</li>
+ *   <li>{@link #findByCategoryIdAndIdGreaterThanOrderByIdAsc(int, int, Limit)}: reads one keyset page of a category's products</li>
+ *   <li>{@link #streamAll()}: streams every product over an open JDBC cursor</li>
+ *   <li>{@link #streamNames()}: streams the ID, version and name of every product</li>
+ *   <li>{@link #streamPrices()}: streams the ID, version, category ID and price of every product</li>
+ *   <li>{@link #findExistingNameKeys(Collection)}: finds which of many normalized names are already taken</li>
+ *   <li>{@link #versionStamp()}: a value that changes whenever any product is created, updated or deleted</li>
+ *   <li>{@link #updateFields(int, Integer, String, Integer, Integer)}: updates the given fields, optionally only at a given version</li>
  * </ul>
  * </p>
  *
@@ -31,7 +54,10 @@ import org.springframework.stereotype.Repository;
  * @see Product
  */
 @Repository//spring repo component
-public interface productRepository extends JpaRepository<Product,Integer> {
+public interface productRepository extends JpaRepository<Product,Integer>, productRepositoryCustom {
+    /** JDBC fetch size used by {@link #streamAll()}. */
+    int STREAM_FETCH_SIZE = 500;
+
     //custom query methods
     /**
      * Checks if a category with the exact given name exists.
@@ -47,13 +73,6 @@ public interface productRepository extends JpaRepository<Product,Integer> {
      * @return true if a category with the specified ID exists, false otherwise
      */
     boolean existsById(int id);
-    /**
-     * Checks if a category with the given name exists, ignoring case.
-     *
-     * @param trim the category name to check (case-insensitive)
-     * @return true if a category with the specified name exists ignoring case, false otherwise
-     */
-    boolean existsByNameIgnoreCase(String trim);
     /**
      * Checks if a product with given category id exists, ignoring case.
      *
@@ -61,6 +80,101 @@ public interface productRepository extends JpaRepository<Product,Integer> {
      * @return true if a product with the specified categoryId exists, false otherwise
      */
     boolean existsBycategoryId(int categoryId);
+    /**
+     * Finds a product by ID, reading through the {@value cacheConfig#PRODUCTS} cache.
+     * <p>
+     * Hits are served from memory; misses run the usual primary-key query and cache the result, unless
+     * an update has cached a newer version meanwhile (see {@link org.example.config.versionedCache}).
+     * Unknown IDs are not cached. The returned instance is shared between callers and must not be
+     * modified; {@code productService} writes go through {@link #findById(Object)} and update the
+     * cache themselves.
+     * </p>
+     *
+     * @param id the product ID to look up
+     * @return the product, or empty if no product has that ID
+     */
+    @Cacheable(cacheNames = cacheConfig.PRODUCTS, key = "#p0", unless = "#result == null")
+    Optional<Product> findCachedById(int id);
+    /**
+     * Reads the next keyset page of one category's products, in ID order.
+     * <p>
+     * Filters on the {@code category_id} foreign key column, so the category row itself is not joined
+     * (the derived-query equivalent adds a left join to {@code categories}).
+     * </p>
+     *
+     * @param categoryId the category whose products are listed
+     * @param id         the last ID of the previous page (0 for the first page)
+     * @param limit      the maximum number of rows to return
+     * @return up to {@code limit} products of the category ordered by ascending ID
+     */
+    @Query("select p from Product p where p.category.id = :categoryId and p.id > :id order by p.id")
+    List<Product> findByCategoryIdAndIdGreaterThanOrderByIdAsc(int categoryId, int id, Limit limit);
+    /**
+     * Streams every product in ID order over an open JDBC cursor instead of building a list.
+     * <p>
+     * Rows are fetched from the driver {@value #STREAM_FETCH_SIZE} at a time and loaded read-only,
+     * so Hibernate keeps no dirty-checking snapshots. The stream must be consumed and closed inside
+     * a transaction (on MySQL also add {@code useCursorFetch=true} to the JDBC URL, otherwise the
+     * driver honours no fetch size).
+     * </p>
+     *
+     * @return a lazily populated stream of products; the caller must close it
+     */
+    @Query("select p from Product p order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamAll();
+    /**
+     * Streams the ID, version and name of every product over an open JDBC cursor, for loading the name indexes.
+     * <p>
+     * Only those columns are read and no entity is loaded. Like {@link #streamAll()} the stream must be
+     * consumed and closed inside a transaction.
+     * </p>
+     *
+     * @return a lazily populated stream of product names; the caller must close it
+     */
+    @Query("select new org.example.dto.productNameDTO(p.id, p.version, p.name) from Product p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    Stream<productNameDTO> streamNames();
+    /**
+     * Streams the ID, version, category ID and price of every product over an open JDBC cursor, for loading the
+     * category statistics.
+     * <p>
+     * Reads the {@code category_id} column without joining {@code categories}. Like {@link #streamAll()} the
+     * stream must be consumed and closed inside a transaction.
+     * </p>
+     *
+     * @return a lazily populated stream of product prices; the caller must close it
+     */
+    @Query("select new org.example.dto.productPriceDTO(p.id, p.version, p.category.id, p.price) from Product p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    Stream<productPriceDTO> streamPrices();
+    /**
+     * Returns those of the given normalized names that already belong to a product.
+     * <p>
+     * Answers a whole import batch with one {@code IN} query on the unique {@code name_key} index
+     * instead of one existence check per row.
+     * </p>
+     *
+     * @param nameKeys lower-cased, trimmed names (see {@link Product#nameKey(String)})
+     * @return the subset of {@code nameKeys} that is already taken
+     */
+    @Query("select p.nameKey from Product p where p.nameKey in :nameKeys")
+    List<String> findExistingNameKeys(Collection<String> nameKeys);
+    /**
+     * Summarizes the state of the whole table as {@code count.sum(id).sum(version)}.
+     * <p>
+     * Any insert, update or delete changes the result: IDs only grow, so rows inserted in place of
+     * deleted ones raise {@code sum(id)}, and every update raises {@code sum(version)}. Computed by the
+     * database in one aggregate query; no row is loaded.
+     * </p>
+     *
+     * @return the stamp, e.g. {@code 3.6.1}
+     */
+    @Query("select str(count(p.id)) || '.' || str(coalesce(sum(p.id), 0)) || '.' || str(coalesce(sum(p.version), 0)) from Product p")
+    String versionStamp();
 
 }
 //jpa will create queries based on the method name
\ No newline at end of file
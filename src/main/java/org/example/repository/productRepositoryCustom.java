@@ -0,0 +1,70 @@
+package org.example.repository;
+
+import jakarta.persistence.Tuple;
+import org.example.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Product repository operations that Spring Data cannot derive from a method name or a fixed query.
+ *
+ * <p>
+ * Implemented by {@link productRepositoryCustomImpl} and mixed into {@link productRepository}.
+ * </p>
+ */
+public interface productRepositoryCustom {
+    /**
+     * Updates the given fields of a product in a single {@code UPDATE}, without reading it first.
+     * <p>
+     * Only the non-null arguments are written, and the version is incremented in the same statement.
+     * When {@code version} is given the row is only updated if it is still at that version, so a
+     * concurrent change makes this return 0 instead of being overwritten.
+     * </p>
+     *
+     * @param id         the ID of the product to update
+     * @param version    the version the caller last read, or {@code null} to update unconditionally
+     * @param name       the new name, or {@code null} to keep it; {@code name_key} follows it
+     * @param price      the new price, or {@code null} to keep it
+     * @param categoryId the new category ID, or {@code null} to keep it
+     * @return the number of rows updated: 1, or 0 if the product is missing or at another version
+     */
+    int updateFields(int id, Integer version, String name, Integer price, Integer categoryId);
+    /**
+     * Reads one keyset page of products, optionally filtered by category and price range, ordered by ID
+     * or by price and then ID.
+     * <p>
+     * Only the given filters are put in the {@code WHERE} clause, so each combination is a plain range
+     * that the database can seek: the {@code (category_id, price, id)} index for a category, the
+     * {@code (price, id)} index for a price order without one, and the primary key otherwise. In price
+     * order the index also yields the rows already sorted, so the query stops after {@code limit} rows
+     * however deep the page is.
+     * </p>
+     *
+     * @param categoryId the category to list, or {@code null} for all products
+     * @param minPrice   the lowest price to include, or {@code null}
+     * @param maxPrice   the highest price to include, or {@code null}
+     * @param byPrice    {@code true} to order by price and then ID, {@code false} to order by ID
+     * @param afterPrice in price order, the price of the last row of the previous page ({@code null} for the
+     *                   first page); ignored in ID order
+     * @param afterId    the ID of the last row of the previous page (0 for the first page)
+     * @param limit      the maximum number of rows to return
+     * @return up to {@code limit} matching products, in the requested order
+     */
+    List<Product> findPage(Integer categoryId, Integer minPrice, Integer maxPrice,
+                           boolean byPrice, Integer afterPrice, int afterId, int limit);
+    /**
+     * Reads the same keyset page as {@link #findPage(Integer, Integer, Integer, boolean, Integer, int, int)},
+     * but only the given product attributes instead of whole entities.
+     * <p>
+     * The {@code SELECT} list holds just those columns, plus {@code id} and, in price order, {@code price}
+     * for the caller to build the next cursor from; each is aliased by its attribute name. Rows are returned
+     * as tuples, so Hibernate neither instantiates entities nor keeps dirty-checking snapshots of them.
+     * </p>
+     *
+     * @param attributes the product attributes to read, e.g. {@code id} and {@code price}
+     * @return up to {@code limit} matching rows, in the requested order
+     */
+    List<Tuple> findPageFields(Collection<String> attributes, Integer categoryId, Integer minPrice, Integer maxPrice,
+                               boolean byPrice, Integer afterPrice, int afterId, int limit);
+}
@@ -0,0 +1,129 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.example.model.Category;
+import org.example.model.Product;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Criteria API implementation of {@link productRepositoryCustom}.
+ *
+ * <p>
+ * The {@code SET} clause depends on which fields a PATCH carries, the {@code WHERE} clause on which
+ * filters a listing uses and the {@code SELECT} list on which fields it asks for, so the statements are
+ * built per call instead of being declared with {@code @Query}. Exceptions are translated to Spring's
+ * {@code DataAccessException} hierarchy by the repository proxy, as for the derived methods.
+ * </p>
+ */
+class productRepositoryCustomImpl implements productRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateFields(int id, Integer version, String name, Integer price, Integer categoryId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> product = update.from(Product.class);
+
+        if (name != null) {
+            update.set(product.<String>get("name"), name);
+            update.set(product.<String>get("nameKey"), Product.nameKey(name));// @PreUpdate does not run for bulk updates
+        }
+        if (price != null) {
+            update.set(product.<Integer>get("price"), price);
+        }
+        if (categoryId != null) {
+            // a reference only carries the ID; the category_id foreign key rejects unknown categories
+            update.set(product.<Category>get("category"), entityManager.getReference(Category.class, categoryId));
+        }
+        update.set(product.<Integer>get("version"), cb.sum(product.<Integer>get("version"), 1));
+
+        Predicate where = cb.equal(product.get("id"), id);
+        if (version != null) {
+            where = cb.and(where, cb.equal(product.get("version"), version));
+        }
+        update.where(where);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public List<Product> findPage(Integer categoryId, Integer minPrice, Integer maxPrice,
+                                  boolean byPrice, Integer afterPrice, int afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> product = query.from(Product.class);
+        query.select(product);
+        page(cb, query, product, categoryId, minPrice, maxPrice, byPrice, afterPrice, afterId);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<Tuple> findPageFields(Collection<String> attributes, Integer categoryId, Integer minPrice, Integer maxPrice,
+                                      boolean byPrice, Integer afterPrice, int afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> product = query.from(Product.class);
+
+        Set<String> columns = new LinkedHashSet<>(attributes);
+        columns.add("id");// the cursor is built from the last row
+        if (byPrice) {
+            columns.add("price");
+        }
+        List<Selection<?>> select = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            select.add(product.get(column).alias(column));
+        }
+        query.multiselect(select);
+        page(cb, query, product, categoryId, minPrice, maxPrice, byPrice, afterPrice, afterId);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /** Adds the filters, keyset bound and order of one page to a product query. */
+    private static void page(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Product> product,
+                             Integer categoryId, Integer minPrice, Integer maxPrice,
+                             boolean byPrice, Integer afterPrice, int afterId) {
+        List<Order> order = new ArrayList<>();
+        List<Predicate> where = new ArrayList<>();
+        if (categoryId != null) {
+            // compares the category_id column; the categories table is not joined
+            where.add(cb.equal(product.get("category").get("id"), categoryId));
+            // constant within the page, but listing it lets H2 read the index in order instead of sorting
+            order.add(cb.asc(product.get("category").get("id")));
+        }
+        if (minPrice != null) {
+            where.add(cb.ge(product.get("price"), minPrice));
+        }
+        if (maxPrice != null) {
+            where.add(cb.le(product.get("price"), maxPrice));
+        }
+        if (!byPrice) {
+            where.add(cb.gt(product.get("id"), afterId));
+        } else {
+            if (afterPrice != null) {
+                // (price, id) > (afterPrice, afterId), with the price bound on its own so the index seeks to it
+                where.add(cb.ge(product.get("price"), afterPrice));
+                where.add(cb.or(cb.gt(product.get("price"), afterPrice), cb.gt(product.get("id"), afterId)));
+            }
+            order.add(cb.asc(product.get("price")));
+        }
+        order.add(cb.asc(product.get("id")));
+        query.where(where.toArray(new Predicate[0])).orderBy(order);
+    }
+}
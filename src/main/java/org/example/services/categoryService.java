@@ -1,14 +1,34 @@
 package org.example.services;
 
+import org.example.dto.categoryFieldsDTO;
 import org.example.dto.categoryRequestDTO;
+import org.example.dto.categoryStatsDTO;
+import org.example.dto.categorySummaryDTO;
+import org.example.dto.productFieldsDTO;
+import org.example.dto.productPageDTO;
+import org.example.config.cacheConfig;
+import org.example.exception.constraintViolations;
 import org.example.exception.customException;
 import org.example.model.Category;
+import org.example.model.Product;
 import org.example.repository.categoryRepository;
 import org.example.repository.productRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Tuple;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service class that handles business logic and data validation for {@link Category} entities.
@@ -21,15 +41,24 @@ import java.util.List;
  * <p>
  * Main responsibilities:
  * <ul>
- *   <li>Retrieves all categories from the repository</li>
+ *   <li>Retrieves all categories, with their product counts, from the repository, or only the requested fields of them</li>
  *   <li>Finds a category by its unique ID, throwing an exception if not found</li>
- *   <li>Validates and creates new categories, preventing duplicates and invalid names</li>
- *   <li>Updates category names, ensuring validity and uniqueness</li>
+ *   <li>Lists the products of a category one keyset page at a time, whole or only the requested fields</li>
+ *   <li>Reports the product count and price range of categories from in-memory statistics</li>
+ *   <li>Validates and creates new categories, with duplicate names rejected by a unique constraint</li>
+ *   <li>Updates category names, ensuring validity and (through the same constraint) uniqueness</li>
  *   <li>Deletes a category by ID, verifying its existence</li>
  * </ul>
  * </p>
  *
  * <p>
+ * Single-category reads go through the {@value cacheConfig#CATEGORIES} cache; every write keeps
+ * that cache in step for exactly the category it touched (and drops its response JSON from
+ * {@value cacheConfig#CATEGORY_JSON}), and publishes a {@link nameChangeEvent}
+ * for the in-memory name indexes.
+ * </p>
+ *
+ * <p>
  * All major operations throw {@link customException} subclasses to clearly indicate error conditions.
  * </p>
  *
@@ -38,30 +67,174 @@ import java.util.List;
  * @see customException
  */
 @Service
+@Timed("service.calls")// one timer per public method, tagged with class and method
 public  class categoryService {
     @Autowired
     private categoryRepository repo;
     @Autowired
     private productRepository productRepo;
+    @Autowired
+    private ApplicationEventPublisher events;
+    @Autowired
+    private categoryStatsIndex stats;
+
+    // concurrent getCategoryById calls for the same ID share one cache/database look-up
+    private final singleFlight<Integer, Category> categoryLoads = new singleFlight<>();
+
+    @Value("${app.single-flight.max-wait-ms:2000}")
+    private long maxLoadWaitMillis = 2000;
+
+    /** Expected version meaning {@code If-Match: *}: any version, but the category must exist. No category has it. */
+    public static final int ANY_VERSION = productService.ANY_VERSION;
+
+    /**
+     * Retrieves all categories from the repository, each with the number of products it holds.
+     * <p>
+     * Products themselves are not loaded; use {@link #getCategoryProducts(int, String, int)} for those.
+     * </p>
+     *
+     * @return a list of category summaries; if none exist, returns an empty list.
+     */
+    public List<categorySummaryDTO> getAllCategories() {
+        return repo.findAllSummaries();
+    }
+
+    /**
+     * Retrieves all categories with only the requested fields.
+     * <p>
+     * With {@code productCount} this is {@link #getAllCategories()}; without it only the ID and name
+     * columns are read, and the products are neither joined nor counted.
+     * </p>
+     *
+     * @param fields the fields to return, from {@link productService#parseFields(String, List)} with {@link categoryFieldsDTO#FIELDS}.
+     * @return one entry per category, in ID order, with only those fields set.
+     */
+    public List<categoryFieldsDTO> getCategoryFields(Set<String> fields) {
+        boolean id = fields.contains("id");
+        boolean name = fields.contains("name");
+        List<categoryFieldsDTO> rows = new ArrayList<>();
+        if (fields.contains("productCount")) {
+            for (categorySummaryDTO c : repo.findAllSummaries()) {
+                rows.add(new categoryFieldsDTO(id ? c.getId() : null, name ? c.getName() : null, c.getProductCount()));
+            }
+            return rows;
+        }
+        for (categoryFieldsDTO c : repo.findAllIdsAndNames()) {
+            rows.add(id && name ? c : new categoryFieldsDTO(id ? c.getId() : null, name ? c.getName() : null));
+        }
+        return rows;
+    }
+
     /**
-     * Retrieves all categories from the repository.
+     * Returns a version of the category list that changes whenever any category or product is
+     * created, updated or deleted (product writes change the counts).
+     * <p>
+     * Costs two aggregate queries and loads no rows. Read it before {@link #getAllCategories()}:
+     * a write in between then only makes the list newer than its version, never older.
+     * </p>
      *
-     * @return a list of all Category objects; if none exist, returns an empty list.
+     * @return an opaque version string.
      */
-    public List<Category> getAllCategories() {
-        return repo.findAll();
+    public String getCategoriesVersion() {
+        return "c" + repo.versionStamp() + "-p" + productRepo.versionStamp();
     }
 
     /**
-     * Retrieves a category by its ID.
+     * Retrieves a category by its ID, from the category cache when it is there.
+     * <p>
+     * Concurrent calls for the same ID share one look-up; see {@link singleFlight}.
+     * </p>
      *
      * @param id the unique identifier of the category to retrieve.
      * @return the Category object with the specified ID.
      * @throws customException.ResourceNotFoundException if no category with the given ID is found.
      */
     public Category getCategoryById(int id) {
-        return repo.findById(id)
-                .orElseThrow(() -> new customException.ResourceNotFoundException("Category with ID " + id + " not found"));
+        return categoryLoads.run(id, maxLoadWaitMillis, () -> repo.findCachedById(id)
+                .orElseThrow(() -> new customException.ResourceNotFoundException("Category with ID " + id + " not found")));
+    }
+
+    /**
+     * Returns the product count and minimum, maximum and average price of a category.
+     * <p>
+     * Read from {@link categoryStatsIndex}, which product writes keep current, so this costs the
+     * same however many products the category holds.
+     * </p>
+     *
+     * @param id the ID of the category.
+     * @return the statistics; the prices are null if the category has no products.
+     * @throws customException.ResourceNotFoundException if no category with the given ID exists.
+     */
+    public categoryStatsDTO getCategoryStats(int id) {
+        categoryStatsDTO categoryStats = stats.get(id);
+        if (categoryStats == null) {
+            throw new customException.ResourceNotFoundException("Category with ID " + id + " not found");
+        }
+        return categoryStats;
+    }
+
+    /**
+     * Returns the product count and minimum, maximum and average price of every category, from
+     * {@link categoryStatsIndex}.
+     *
+     * @return the statistics of every category in ID order, including categories without products.
+     */
+    public List<categoryStatsDTO> getAllCategoryStats() {
+        return stats.getAll();
+    }
+
+    /**
+     * Retrieves one keyset page of the products in a category, ordered by ID.
+     * <p>
+     * Only the product page is queried; the category's existence is checked
+     * separately only when the page comes back empty.
+     * </p>
+     *
+     * @param id the ID of the category.
+     * @param after the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit the page size, between 1 and {@link productService#MAX_PAGE_SIZE}.
+     * @return the page of products and the cursor of the next page (null on the last page).
+     * @throws customException.ValidationException if the limit is out of range or the cursor is malformed.
+     * @throws customException.ResourceNotFoundException if no category with the given ID exists.
+     */
+    public productPageDTO<Product> getCategoryProducts(int id, String after, int limit) {
+        if (limit < 1 || limit > productService.MAX_PAGE_SIZE) {
+            throw new customException.ValidationException("Limit must be between 1 and " + productService.MAX_PAGE_SIZE);
+        }
+        int afterId = after == null ? 0 : productService.decodeCursor(after);
+        List<Product> rows = productRepo.findByCategoryIdAndIdGreaterThanOrderByIdAsc(id, afterId, Limit.of(limit + 1));
+        if (rows.isEmpty() && repo.findCachedById(id).isEmpty()) {
+            throw new customException.ResourceNotFoundException("Category with ID " + id + " not found");
+        }
+        if (rows.size() <= limit) {
+            return new productPageDTO<>(rows, null);
+        }
+        List<Product> items = rows.subList(0, limit);
+        return new productPageDTO<>(items, productService.encodeCursor(items.get(limit - 1).getId()));
+    }
+
+    /**
+     * Retrieves the same page as {@link #getCategoryProducts(int, String, int)}, with only the requested
+     * fields of each product, read by a projection query that loads no entities.
+     *
+     * @param id the ID of the category.
+     * @param fields the fields to return, from {@link productService#parseFields(String, List)} with {@link productFieldsDTO#FIELDS}.
+     * @param after the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit the page size, between 1 and {@link productService#MAX_PAGE_SIZE}.
+     * @return the page of products with only those fields set, and the cursor of the next page (null on the last page).
+     * @throws customException.ValidationException if the limit is out of range or the cursor is malformed.
+     * @throws customException.ResourceNotFoundException if no category with the given ID exists.
+     */
+    public productPageDTO<productFieldsDTO> getCategoryProductFields(int id, Set<String> fields, String after, int limit) {
+        if (limit < 1 || limit > productService.MAX_PAGE_SIZE) {
+            throw new customException.ValidationException("Limit must be between 1 and " + productService.MAX_PAGE_SIZE);
+        }
+        int afterId = after == null ? 0 : productService.decodeCursor(after);
+        List<Tuple> rows = productRepo.findPageFields(fields, id, null, null, false, null, afterId, limit + 1);
+        if (rows.isEmpty() && repo.findCachedById(id).isEmpty()) {
+            throw new customException.ResourceNotFoundException("Category with ID " + id + " not found");
+        }
+        return productService.fieldsPage(fields, rows, limit, false);
     }
 
     /**
@@ -73,44 +246,97 @@ public  class categoryService {
      * @throws customException.DuplicateResourceException if a category with the same name (case-insensitive) already exists.
      */
 
+    @CachePut(cacheNames = cacheConfig.CATEGORIES, key = "#result.id")
     public Category createCategory(categoryRequestDTO dto) {
 
         if (dto.getName() == null || dto.getName().trim().isEmpty()) {
             throw new customException.ValidationException("Category name cannot be empty");
         }
         String name = dto.getName().trim();
-        if (repo.existsByNameIgnoreCase(name)) {
-            throw new customException.DuplicateResourceException("Category with name '" + name + "' already exists");
-        }
 
         Category category = new Category();
         category.setName(name);
-        return repo.save(category);
+        Category saved = saveUnique(category, name);
+        events.publishEvent(nameChangeEvent.saved(nameChangeEvent.kind.CATEGORY, saved.getId(), saved.getVersion(), saved.getName()));
+        return saved;
     }
     /**
-     * Updates the name of an existing category identified by its ID.
+     * Renames an existing category with a single {@code UPDATE}; the category is not read first.
+     * <p>
+     * With an {@code expectedVersion} the rename only applies if nobody changed the category since that
+     * version was read. The renamed category is read back by ID afterwards and replaces the cached entry.
+     * </p>
      *
      * @param id the ID of the category to update.
-     * @param newName the new name to set for the category.
+     * @param expectedVersion the version from the client's {@code If-Match}, or {@code null} to update unconditionally;
+     *                        {@link #ANY_VERSION} ({@code If-Match: *}) updates any version but requires the category to exist.
+     * @param dto the request holding the new name.
      * @return the updated Category object.
      * @throws customException.ResourceNotFoundException if no category with the given ID exists.
      * @throws customException.ValidationException if the new category name is null, empty, or only whitespace.
      * @throws customException.DuplicateResourceException if a category with the new name (case-insensitive) already exists
      *                                                    and it's not the same category being updated.
+     * @throws customException.PreconditionFailedException if the category is no longer at {@code expectedVersion},
+     *                                                    or does not exist and {@code expectedVersion} is {@link #ANY_VERSION}.
      */
 
-    public Category updateCategory(int id, categoryRequestDTO dto) {
-        Category existing = getCategoryById(id);
-        String newName = dto.getName().trim();
+    @Caching(put = @CachePut(cacheNames = cacheConfig.CATEGORIES, key = "#id"),
+            evict = @CacheEvict(cacheNames = cacheConfig.CATEGORY_JSON, key = "#id"))
+    @Transactional// the update and the read-back see the same row
+    public Category updateCategory(int id, Integer expectedVersion, categoryRequestDTO dto) {
         if (dto.getName() == null || dto.getName().trim().isEmpty()) {
             throw new customException.ValidationException("Category name cannot be empty");
         }
-        if (repo.existsByNameIgnoreCase(newName) &&
-                !existing.getName().equalsIgnoreCase(newName)) {
-            throw new customException.DuplicateResourceException("Category with name '" + newName + "' already exists");
+        String newName = dto.getName().trim();
+
+        boolean mustExist = expectedVersion != null && expectedVersion == ANY_VERSION;
+        int updated;
+        try {
+            updated = repo.updateName(id, mustExist ? null : expectedVersion, newName, Category.nameKey(newName));
+        } catch (DataIntegrityViolationException e) {
+            if (constraintViolations.violates(e, Category.NAME_KEY_CONSTRAINT)) {
+                throw new customException.DuplicateResourceException("Category with name '" + newName + "' already exists");
+            }
+            throw e;
+        }
+        if (updated == 0) {
+            // only a failed update pays for telling the two causes apart
+            if (mustExist) {// the update was unconditional, so the category is missing
+                throw new customException.PreconditionFailedException("Category with ID " + id + " does not exist");
+            }
+            if (!repo.existsById(id)) {
+                throw new customException.ResourceNotFoundException("Category with ID " + id + " not found");
+            }
+            throw new customException.PreconditionFailedException(
+                    "Category with ID " + id + " has changed since version " + expectedVersion);
+        }
+        // read past the cache: the cached instance is stale now
+        Category category = repo.findById(id).orElseThrow();
+        events.publishEvent(nameChangeEvent.saved(nameChangeEvent.kind.CATEGORY, id, category.getVersion(), category.getName()));
+        return category;
+    }
+
+    /**
+     * Saves a category and lets the {@code uk_categories_name_key} constraint reject duplicate names.
+     * <p>
+     * Replaces a case-insensitive lookup before the write: the check is an index probe done by the
+     * insert or update itself, and concurrent writers of the same name cannot both succeed.
+     * </p>
+     *
+     * @param category the category to save.
+     * @param name the name being written, for the error message.
+     * @return the saved category.
+     * @throws customException.DuplicateResourceException if another category already has the name (case-insensitive).
+     */
+    private Category saveUnique(Category category, String name) {
+        try {
+            return repo.saveAndFlush(category);
+        } catch (DataIntegrityViolationException e) {
+            if (constraintViolations.violates(e, Category.NAME_KEY_CONSTRAINT)) {
+                throw new customException.DuplicateResourceException("Category with name '" + name + "' already exists");
+            }
+            throw e;
         }
-        existing.setName(newName);
-        return repo.save(existing);
     }
     /**
      * Deletes the category with the specified ID.
@@ -120,6 +346,7 @@ public  class categoryService {
      * @throws customException.ValidationException if product with the given categoryId exists.
      */
 
+    @CacheEvict(cacheNames = {cacheConfig.CATEGORIES, cacheConfig.CATEGORY_JSON}, key = "#id")
     public void deleteCategory(int id) {
         if (!repo.existsById(id)) {
             throw new customException.ResourceNotFoundException("Category with ID " + id + " not found");
@@ -131,5 +358,6 @@ public  class categoryService {
             throw new customException.ValidationException("Cannot delete category: Products exist in this category!");
         }
         repo.deleteById(id);
+        events.publishEvent(nameChangeEvent.deleted(nameChangeEvent.kind.CATEGORY, id));
     }
 }
\ No newline at end of file
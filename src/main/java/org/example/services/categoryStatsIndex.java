@@ -0,0 +1,295 @@
+package org.example.services;
+
+import org.example.dto.categoryStatsDTO;
+import org.example.dto.productPriceDTO;
+import org.example.model.Category;
+import org.example.repository.categoryRepository;
+import org.example.repository.productRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Product count and minimum, maximum and average price of every category, kept up to date in memory.
+ *
+ * <p>
+ * Each category holds its product count, price sum, current minimum and maximum, and a count of products
+ * per distinct price. Adding or removing a product adjusts these in time logarithmic in the number of
+ * distinct prices; the count of products per price is only consulted when the product holding the minimum
+ * or maximum goes away. Reading the statistics of a category is constant time and never touches the database.
+ * </p>
+ *
+ * <p>
+ * The category and price of every product are also remembered, in arrays indexed by product ID, so an
+ * update or deletion knows what to take away from where: moving a product to another category is a removal
+ * from the old category followed by an addition to the new one.
+ * </p>
+ *
+ * <p>
+ * Next to them is the version each product and category had in the last change applied to it (see
+ * {@link versionLog}). Events can be applied in a different order than their transactions committed;
+ * one older than what is already applied is ignored, so it cannot move a product back to an earlier
+ * category or price and leave the statistics counting it there.
+ * </p>
+ *
+ * <p>
+ * Everything is loaded from the database once at startup, before the web server accepts requests, and then
+ * updated from the {@link productChangeEvent}s and category {@link nameChangeEvent}s of committed writes.
+ * Reads share a read lock; updates take the write lock.
+ * </p>
+ */
+@Component
+public class categoryStatsIndex implements SmartInitializingSingleton {
+
+    /** Running statistics of one category. */
+    private static final class stats {
+        String name;
+        int count;
+        long sum;
+        int min;
+        int max;
+        final TreeMap<Integer, Integer> products = new TreeMap<>();// price -> products at that price
+
+        stats(String name) {
+            this.name = name;
+        }
+
+        void add(int price) {
+            products.merge(price, 1, Integer::sum);
+            min = count == 0 ? price : Math.min(min, price);
+            max = count == 0 ? price : Math.max(max, price);
+            count++;
+            sum += price;
+        }
+
+        void remove(int price) {
+            products.compute(price, (p, n) -> n == 1 ? null : n - 1);
+            count--;
+            sum -= price;
+            if (count > 0 && price == min) {
+                min = products.firstKey();
+            }
+            if (count > 0 && price == max) {
+                max = products.lastKey();
+            }
+        }
+
+        categoryStatsDTO toDTO(int id) {
+            if (count == 0) {
+                return new categoryStatsDTO(id, name, 0, null, null, null);
+            }
+            return new categoryStatsDTO(id, name, count, min, max, (double) sum / count);
+        }
+    }
+
+    @Autowired
+    private productRepository productRepo;
+
+    @Autowired
+    private categoryRepository categoryRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<Integer, stats> categories = new TreeMap<>();
+
+    // by product ID; categoryOf is 0 for IDs without a product
+    private int[] categoryOf = new int[1024];
+    private int[] priceOf = new int[1024];
+    private final versionLog productVersions = new versionLog(1024);
+    private final versionLog categoryVersions = new versionLog(64);
+
+    /**
+     * Loads every category and the category and price of every product from the database.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        lock.writeLock().lock();
+        try {
+            tx.executeWithoutResult(status -> {
+                for (Category category : categoryRepo.findAll()) {
+                    categoryVersions.advance(category.getId(), category.getVersion());
+                    putCategory0(category.getId(), category.getName());
+                }
+                try (Stream<productPriceDTO> all = productRepo.streamPrices()) {
+                    all.forEach(p -> {
+                        productVersions.advance(p.getId(), p.getVersion());
+                        if (p.getCategoryId() != null) {
+                            putProduct0(p.getId(), p.getCategoryId(), p.getPrice());
+                        }
+                    });
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies committed product creations, deletions, price changes and moves between categories, except
+     * those older than a change already applied to the same product.
+     *
+     * @param event the products changed by one write
+     */
+    @TransactionalEventListener(fallbackExecution = true)// runs right away for writes made outside a transaction
+    public void onProductChange(productChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < event.size(); i++) {
+                if (event.isDeleted()) {
+                    productVersions.delete(event.getId(i));
+                    removeProduct0(event.getId(i));
+                } else if (productVersions.advance(event.getId(i), event.getVersion(i))) {
+                    putProduct0(event.getId(i), event.getCategoryId(i), event.getPrice(i));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies committed category creations, renames and deletions, except those older than a change already
+     * applied to the same category; product name changes are ignored.
+     *
+     * @param event the names changed by one write
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNameChange(nameChangeEvent event) {
+        if (event.getKind() != nameChangeEvent.kind.CATEGORY) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < event.size(); i++) {
+                if (event.getName(i) == null) {
+                    categoryVersions.delete(event.getId(i));
+                    categories.remove(event.getId(i));// only categories without products can be deleted
+                } else if (categoryVersions.advance(event.getId(i), event.getVersion(i))) {
+                    putCategory0(event.getId(i), event.getName(i));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a category, or renames it if it is already known.
+     */
+    public void putCategory(int id, String name) {
+        lock.writeLock().lock();
+        try {
+            putCategory0(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a product, or moves it to its new category and price if it is already counted.
+     */
+    public void putProduct(int id, int categoryId, int price) {
+        lock.writeLock().lock();
+        try {
+            putProduct0(id, categoryId, price);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product; does nothing if it is not counted.
+     */
+    public void removeProduct(int id) {
+        lock.writeLock().lock();
+        try {
+            removeProduct0(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param categoryId the ID of the category
+     * @return the statistics of the category, or {@code null} if there is no such category.
+     */
+    public categoryStatsDTO get(int categoryId) {
+        lock.readLock().lock();
+        try {
+            stats s = categories.get(categoryId);
+            return s == null ? null : s.toDTO(categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the statistics of every category, in ID order, including categories without products.
+     */
+    public List<categoryStatsDTO> getAll() {
+        lock.readLock().lock();
+        try {
+            List<categoryStatsDTO> all = new ArrayList<>(categories.size());
+            for (Map.Entry<Integer, stats> e : categories.entrySet()) {
+                all.add(e.getValue().toDTO(e.getKey()));
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putCategory0(int id, String name) {
+        stats s = categories.get(id);
+        if (s == null) {
+            categories.put(id, new stats(name));
+        } else {
+            s.name = name;
+        }
+    }
+
+    private void putProduct0(int id, int categoryId, int price) {
+        if (id < categoryOf.length && categoryOf[id] == categoryId && priceOf[id] == price) {
+            return;// e.g. a rename
+        }
+        removeProduct0(id);
+        if (id >= categoryOf.length) {
+            int capacity = Math.max(id + 1, categoryOf.length * 2);
+            categoryOf = Arrays.copyOf(categoryOf, capacity);
+            priceOf = Arrays.copyOf(priceOf, capacity);
+        }
+        // the category's own event may not have arrived yet if it was created in the same transaction
+        categories.computeIfAbsent(categoryId, c -> new stats(null)).add(price);
+        categoryOf[id] = categoryId;
+        priceOf[id] = price;
+    }
+
+    private void removeProduct0(int id) {
+        if (id >= categoryOf.length || categoryOf[id] == 0) {
+            return;
+        }
+        stats s = categories.get(categoryOf[id]);
+        if (s != null) {
+            s.remove(priceOf[id]);
+        }
+        categoryOf[id] = 0;
+        priceOf[id] = 0;
+    }
+}
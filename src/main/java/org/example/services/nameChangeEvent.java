@@ -0,0 +1,59 @@
+package org.example.services;
+
+/**
+ * Published by {@link productService} and {@link categoryService} when product or category names are
+ * created, changed or deleted.
+ *
+ * <p>
+ * Consumers are the in-memory name indexes ({@link productSearchIndex}, {@link nameSuggestIndex}); they
+ * listen with {@code @TransactionalEventListener}, so they only see writes that were committed. One event
+ * may carry many names, e.g. every product of a bulk import. Each saved name comes with the row's
+ * {@code @Version} after the write, so an event applied after a newer one for the same row can be ignored.
+ * </p>
+ */
+public class nameChangeEvent {
+
+    /** Which table the IDs belong to. */
+    public enum kind { PRODUCT, CATEGORY }
+
+    private final kind kind;
+    private final int[] ids;
+    private final int[] versions;
+    private final String[] names;
+
+    /**
+     * @param kind     whether the IDs are product or category IDs
+     * @param ids      the IDs of the changed rows
+     * @param versions the current version of each row, ignored where it was deleted
+     * @param names    the current name of each row, {@code null} where it was deleted
+     */
+    public nameChangeEvent(kind kind, int[] ids, int[] versions, String[] names) {
+        this.kind = kind;
+        this.ids = ids;
+        this.versions = versions;
+        this.names = names;
+    }
+
+    /** A row created or renamed. */
+    public static nameChangeEvent saved(kind kind, int id, int version, String name) {
+        return new nameChangeEvent(kind, new int[]{id}, new int[]{version}, new String[]{name});
+    }
+
+    /** A row deleted. */
+    public static nameChangeEvent deleted(kind kind, int id) {
+        return new nameChangeEvent(kind, new int[]{id}, new int[]{0}, new String[]{null});
+    }
+
+    // getters
+    public kind getKind() { return kind; }
+
+    public int size() { return ids.length; }
+
+    public int getId(int i) { return ids[i]; }
+
+    /** @return the version of the i-th row after the write; meaningless if it was deleted. */
+    public int getVersion(int i) { return versions[i]; }
+
+    /** @return the name of the i-th row, or {@code null} if it was deleted. */
+    public String getName(int i) { return names[i]; }
+}
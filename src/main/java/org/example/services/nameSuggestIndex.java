@@ -0,0 +1,567 @@
+package org.example.services;
+
+import org.example.dto.productNameDTO;
+import org.example.dto.suggestionDTO;
+import org.example.model.Category;
+import org.example.repository.categoryRepository;
+import org.example.repository.productRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Radix trie of every product and category name, answering "the best names starting with this prefix"
+ * in time proportional to the prefix length.
+ *
+ * <p>
+ * Names are lower-cased character by character and inserted into a trie whose edges carry whole runs of
+ * characters, so a chain of single-child nodes takes one node. Every node whose subtree holds more than
+ * {@value #TOP_K} names stores the {@value #TOP_K} best of them, kept sorted; smaller subtrees are
+ * collected when asked, which touches at most {@value #TOP_K} names. A lookup walks the prefix and returns
+ * the list found at the node where it ends. Shorter names rank first, then names in alphabetical order.
+ * </p>
+ *
+ * <p>
+ * To stay compact the trie holds no per-node objects: nodes are indexes into parallel {@code int} arrays,
+ * edge labels are ranges of one shared {@code char} array, and the stored top lists are fixed-size slots
+ * of one shared {@code int} array. Nodes and slots freed by deletions are reused; label characters of
+ * deleted names are not reclaimed until the next restart.
+ * </p>
+ *
+ * <p>
+ * The trie is loaded from the database once at startup, before the web server accepts requests, and then
+ * updated in place from the {@link nameChangeEvent}s of committed writes, skipping any older than a change
+ * already applied to the same row (see {@link versionLog}). Lookups share a read lock; updates take the
+ * write lock.
+ * </p>
+ */
+@Component
+public class nameSuggestIndex implements SmartInitializingSingleton {
+
+    /** Most names a lookup can return; also the size of the list stored at each node. */
+    public static final int TOP_K = 10;
+
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    @Autowired
+    private productRepository productRepo;
+
+    @Autowired
+    private categoryRepository categoryRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // entries: one per indexed name
+    private String[] entryName = new String[1024];
+    private int[] entryRef = new int[1024];// id << 1, | 1 for a category
+    private int[] entryNext = new int[1024];// next entry ending at the same node, or next free entry
+    private int entries;
+    private int freeEntry = NONE;
+    private int[] productEntries = new int[1024];// entry + 1 by product ID, 0 if not indexed
+    private int[] categoryEntries = new int[64];// entry + 1 by category ID, 0 if not indexed
+    private final versionLog productVersions = new versionLog(1024);
+    private final versionLog categoryVersions = new versionLog(64);
+
+    // nodes
+    private int[] labelStart = new int[1024];
+    private int[] labelLength = new int[1024];
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];// next child of the same parent, or next free node
+    private int[] count = new int[1024];// entries in the subtree
+    private int[] entriesAt = new int[1024];// first entry ending exactly here
+    private int[] topSlot = new int[1024];// slot of the stored top list, NONE when count <= TOP_K
+    private int nodes;
+    private int freeNode = NONE;
+
+    private char[] labels = new char[4096];
+    private int labelsUsed;
+
+    private int[] tops = new int[TOP_K * 64];// TOP_K entries per slot, best first
+    private int slots;
+    private int freeSlot = NONE;
+
+    public nameSuggestIndex() {
+        newNode(0, 0);// the root, with an empty label
+    }
+
+    /**
+     * Loads every product and category name from the database.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        lock.writeLock().lock();
+        try {
+            tx.executeWithoutResult(status -> {
+                for (Category category : categoryRepo.findAll()) {
+                    categoryVersions.advance(category.getId(), category.getVersion());
+                    put0(true, category.getId(), category.getName());
+                }
+                try (Stream<productNameDTO> all = productRepo.streamNames()) {
+                    all.forEach(p -> {
+                        productVersions.advance(p.getId(), p.getVersion());
+                        put0(false, p.getId(), p.getName());
+                    });
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies committed product and category name changes, except those older than a change already applied
+     * to the same row.
+     *
+     * @param event the names created, changed or deleted by one write
+     */
+    @TransactionalEventListener(fallbackExecution = true)// runs right away for writes made outside a transaction
+    public void onNameChange(nameChangeEvent event) {
+        boolean category = event.getKind() == nameChangeEvent.kind.CATEGORY;
+        lock.writeLock().lock();
+        try {
+            versionLog versions = category ? categoryVersions : productVersions;
+            for (int i = 0; i < event.size(); i++) {
+                if (event.getName(i) == null) {
+                    versions.delete(event.getId(i));
+                    remove0(category, event.getId(i));
+                } else if (versions.advance(event.getId(i), event.getVersion(i))) {
+                    put0(category, event.getId(i), event.getName(i));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a product name, or replaces it if the product is already indexed.
+     */
+    public void putProduct(int id, String name) {
+        lock.writeLock().lock();
+        try {
+            put0(false, id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a category name, or replaces it if the category is already indexed.
+     */
+    public void putCategory(int id, String name) {
+        lock.writeLock().lock();
+        try {
+            put0(true, id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product name; does nothing if the product is not indexed.
+     */
+    public void removeProduct(int id) {
+        lock.writeLock().lock();
+        try {
+            remove0(false, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a category name; does nothing if the category is not indexed.
+     */
+    public void removeCategory(int id) {
+        lock.writeLock().lock();
+        try {
+            remove0(true, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed names.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count[ROOT];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best names starting with {@code prefix}, ignoring case: shortest first, then alphabetical.
+     *
+     * @param prefix the typed text; leading whitespace is ignored
+     * @param limit  the maximum number of names to return, at most {@value #TOP_K}
+     * @return the matching product and category names, best first
+     */
+    public List<suggestionDTO> suggest(String prefix, int limit) {
+        char[] q = fold(prefix.stripLeading());
+        lock.readLock().lock();
+        try {
+            int node = ROOT;
+            int i = 0;
+            while (i < q.length) {
+                node = child(node, q[i]);
+                if (node == NONE) {
+                    return List.of();
+                }
+                for (int j = 0; j < labelLength[node] && i < q.length; j++, i++) {
+                    if (labels[labelStart[node] + j] != q[i]) {
+                        return List.of();
+                    }
+                }
+            }
+            int[] best = top(node);
+            List<suggestionDTO> suggestions = new ArrayList<>(Math.min(limit, best.length));
+            for (int k = 0; k < best.length && k < limit; k++) {
+                int e = best[k];
+                boolean category = (entryRef[e] & 1) != 0;
+                suggestions.add(new suggestionDTO(entryName[e], category ? suggestionDTO.CATEGORY : suggestionDTO.PRODUCT,
+                        entryRef[e] >>> 1));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put0(boolean category, int id, String name) {
+        int existing = entryOf(category, id);
+        if (existing != NONE) {
+            if (entryName[existing].equals(name)) {
+                return;
+            }
+            remove0(category, id);
+        }
+        int e = newEntry(name, id << 1 | (category ? 1 : 0));
+        setEntryOf(category, id, e + 1);
+        insert(e, fold(name));
+    }
+
+    private void remove0(boolean category, int id) {
+        int e = entryOf(category, id);
+        if (e == NONE) {
+            return;
+        }
+        delete(e, fold(entryName[e]));
+        setEntryOf(category, id, 0);
+        entryName[e] = null;
+        entryNext[e] = freeEntry;
+        freeEntry = e;
+    }
+
+    private void insert(int e, char[] key) {
+        int[] path = new int[key.length + 1];
+        int depth = 0;
+        int node = ROOT;
+        path[depth++] = node;
+        int i = 0;
+        while (i < key.length) {
+            int c = child(node, key[i]);
+            if (c == NONE) {
+                int leaf = newNode(appendLabel(key, i), key.length - i);
+                nextSibling[leaf] = firstChild[node];
+                firstChild[node] = leaf;
+                node = leaf;
+                path[depth++] = node;
+                break;
+            }
+            int j = 1;// the first character matched in child()
+            while (j < labelLength[c] && i + j < key.length && labels[labelStart[c] + j] == key[i + j]) {
+                j++;
+            }
+            if (j < labelLength[c]) {
+                split(c, j);
+            }
+            node = c;
+            path[depth++] = node;
+            i += j;
+        }
+        entryNext[e] = entriesAt[node];
+        entriesAt[node] = e;
+        // bottom-up, so a node building its list sees its children's lists already updated
+        for (int d = depth - 1; d >= 0; d--) {
+            int p = path[d];
+            count[p]++;
+            if (count[p] <= TOP_K) {
+                continue;
+            }
+            if (topSlot[p] == NONE) {
+                topSlot[p] = newSlot();
+                System.arraycopy(collect(p), 0, tops, topSlot[p] * TOP_K, TOP_K);
+            } else {
+                offer(topSlot[p], e);
+            }
+        }
+    }
+
+    private void delete(int e, char[] key) {
+        int[] path = new int[key.length + 1];
+        int depth = 0;
+        int node = ROOT;
+        path[depth++] = node;
+        int i = 0;
+        while (i < key.length) {
+            node = child(node, key[i]);
+            i += labelLength[node];
+            path[depth++] = node;
+        }
+        // unlink the entry from its node
+        if (entriesAt[node] == e) {
+            entriesAt[node] = entryNext[e];
+        } else {
+            int prev = entriesAt[node];
+            while (entryNext[prev] != e) {
+                prev = entryNext[prev];
+            }
+            entryNext[prev] = entryNext[e];
+        }
+        // bottom-up, so a node recomputing its list sees its children's lists already updated
+        for (int d = depth - 1; d >= 0; d--) {
+            int p = path[d];
+            count[p]--;
+            if (topSlot[p] == NONE) {
+                continue;
+            }
+            if (count[p] <= TOP_K) {
+                releaseSlot(topSlot[p]);
+                topSlot[p] = NONE;
+            } else if (slotHolds(topSlot[p], e)) {
+                System.arraycopy(collect(p), 0, tops, topSlot[p] * TOP_K, TOP_K);
+            }
+        }
+        // drop nodes left without names
+        for (int d = depth - 1; d > 0 && count[path[d]] == 0; d--) {
+            unlinkChild(path[d - 1], path[d]);
+            nextSibling[path[d]] = freeNode;
+            freeNode = path[d];
+        }
+    }
+
+    /** Splits node {@code c} after {@code at} label characters; the tail moves to a new only child. */
+    private void split(int c, int at) {
+        int tail = newNode(labelStart[c] + at, labelLength[c] - at);
+        firstChild[tail] = firstChild[c];
+        entriesAt[tail] = entriesAt[c];
+        count[tail] = count[c];
+        topSlot[tail] = topSlot[c];
+        labelLength[c] = at;
+        firstChild[c] = tail;
+        entriesAt[c] = NONE;
+        if (topSlot[tail] != NONE) {// same names below both, so the same list
+            topSlot[c] = newSlot();
+            System.arraycopy(tops, topSlot[tail] * TOP_K, tops, topSlot[c] * TOP_K, TOP_K);
+        }
+    }
+
+    /** @return the best {@code min(count, TOP_K)} entries of the subtree, best first. */
+    private int[] top(int node) {
+        if (topSlot[node] != NONE) {
+            return Arrays.copyOfRange(tops, topSlot[node] * TOP_K, topSlot[node] * TOP_K + TOP_K);
+        }
+        return collect(node);
+    }
+
+    /**
+     * Merges the entries ending at the node with the lists of its children.
+     *
+     * @return the best {@code min(count, TOP_K)} entries of the subtree, best first
+     */
+    private int[] collect(int node) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int e = entriesAt[node]; e != NONE; e = entryNext[e]) {
+            candidates.add(e);
+        }
+        for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+            for (int e : top(c)) {
+                candidates.add(e);
+            }
+        }
+        candidates.sort(this::compare);
+        return candidates.stream().limit(TOP_K).mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Inserts {@code e} into a full, sorted slot if it beats the last entry. */
+    private void offer(int slot, int e) {
+        int base = slot * TOP_K;
+        int at = TOP_K;
+        while (at > 0 && compare(e, tops[base + at - 1]) < 0) {
+            at--;
+        }
+        if (at == TOP_K) {
+            return;
+        }
+        System.arraycopy(tops, base + at, tops, base + at + 1, TOP_K - at - 1);
+        tops[base + at] = e;
+    }
+
+    private boolean slotHolds(int slot, int e) {
+        for (int k = slot * TOP_K; k < slot * TOP_K + TOP_K; k++) {
+            if (tops[k] == e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Shorter names first, then alphabetical ignoring case, then products before categories and by ID. */
+    private int compare(int a, int b) {
+        String x = entryName[a];
+        String y = entryName[b];
+        if (x.length() != y.length()) {
+            return x.length() - y.length();
+        }
+        for (int i = 0; i < x.length(); i++) {
+            char cx = Character.toLowerCase(x.charAt(i));
+            char cy = Character.toLowerCase(y.charAt(i));
+            if (cx != cy) {
+                return cx - cy;
+            }
+        }
+        return Integer.compare(entryRef[a], entryRef[b]);
+    }
+
+    private int child(int node, char first) {
+        for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+            if (labels[labelStart[c]] == first) {
+                return c;
+            }
+        }
+        return NONE;
+    }
+
+    private void unlinkChild(int parent, int node) {
+        if (firstChild[parent] == node) {
+            firstChild[parent] = nextSibling[node];
+            return;
+        }
+        int prev = firstChild[parent];
+        while (nextSibling[prev] != node) {
+            prev = nextSibling[prev];
+        }
+        nextSibling[prev] = nextSibling[node];
+    }
+
+    private int entryOf(boolean category, int id) {
+        int[] byId = category ? categoryEntries : productEntries;
+        return id < byId.length ? byId[id] - 1 : NONE;
+    }
+
+    private void setEntryOf(boolean category, int id, int value) {
+        if (category) {
+            if (id >= categoryEntries.length) {
+                categoryEntries = Arrays.copyOf(categoryEntries, Math.max(id + 1, categoryEntries.length * 2));
+            }
+            categoryEntries[id] = value;
+        } else {
+            if (id >= productEntries.length) {
+                productEntries = Arrays.copyOf(productEntries, Math.max(id + 1, productEntries.length * 2));
+            }
+            productEntries[id] = value;
+        }
+    }
+
+    private int newEntry(String name, int ref) {
+        int e;
+        if (freeEntry != NONE) {
+            e = freeEntry;
+            freeEntry = entryNext[e];
+        } else {
+            if (entries == entryName.length) {
+                entryName = Arrays.copyOf(entryName, entries * 2);
+                entryRef = Arrays.copyOf(entryRef, entries * 2);
+                entryNext = Arrays.copyOf(entryNext, entries * 2);
+            }
+            e = entries++;
+        }
+        entryName[e] = name;
+        entryRef[e] = ref;
+        entryNext[e] = NONE;
+        return e;
+    }
+
+    private int newNode(int start, int length) {
+        int n;
+        if (freeNode != NONE) {
+            n = freeNode;
+            freeNode = nextSibling[n];
+        } else {
+            if (nodes == labelStart.length) {
+                int capacity = nodes * 2;
+                labelStart = Arrays.copyOf(labelStart, capacity);
+                labelLength = Arrays.copyOf(labelLength, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                count = Arrays.copyOf(count, capacity);
+                entriesAt = Arrays.copyOf(entriesAt, capacity);
+                topSlot = Arrays.copyOf(topSlot, capacity);
+            }
+            n = nodes++;
+        }
+        labelStart[n] = start;
+        labelLength[n] = length;
+        firstChild[n] = NONE;
+        nextSibling[n] = NONE;
+        count[n] = 0;
+        entriesAt[n] = NONE;
+        topSlot[n] = NONE;
+        return n;
+    }
+
+    private int newSlot() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = tops[slot * TOP_K];
+            return slot;
+        }
+        if ((slots + 1) * TOP_K > tops.length) {
+            tops = Arrays.copyOf(tops, tops.length * 2);
+        }
+        return slots++;
+    }
+
+    private void releaseSlot(int slot) {
+        tops[slot * TOP_K] = freeSlot;
+        freeSlot = slot;
+    }
+
+    private int appendLabel(char[] key, int from) {
+        int length = key.length - from;
+        if (labelsUsed + length > labels.length) {
+            labels = Arrays.copyOf(labels, Math.max(labelsUsed + length, labels.length * 2));
+        }
+        System.arraycopy(key, from, labels, labelsUsed, length);
+        labelsUsed += length;
+        return labelsUsed - length;
+    }
+
+    private static char[] fold(String s) {
+        char[] c = s.toCharArray();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = Character.toLowerCase(c[i]);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.services;
+
+/**
+ * Published by {@link productService} when products are created, deleted, or get a new price or category.
+ *
+ * <p>
+ * Carries the current category and price of each product, not the change: {@link categoryStatsIndex}
+ * remembers the previous values itself, so the write path never reads a row just to report its old state.
+ * Each product also carries its {@code @Version} after the write, so an event applied after a newer one for
+ * the same product can be ignored. Like {@link nameChangeEvent} it is consumed with {@code @TransactionalEventListener}, so only committed
+ * writes are seen.
+ * </p>
+ */
+public class productChangeEvent {
+
+    private final int[] ids;
+    private final int[] versions;// null for a deletion
+    private final int[] categoryIds;// null for a deletion
+    private final int[] prices;// null for a deletion
+
+    /**
+     * @param ids         the IDs of the created or changed products
+     * @param versions    the current version of each product
+     * @param categoryIds the current category ID of each product
+     * @param prices      the current price of each product
+     */
+    public productChangeEvent(int[] ids, int[] versions, int[] categoryIds, int[] prices) {
+        this.ids = ids;
+        this.versions = versions;
+        this.categoryIds = categoryIds;
+        this.prices = prices;
+    }
+
+    /** A product created, or moved to another category or price. */
+    public static productChangeEvent saved(int id, int version, int categoryId, int price) {
+        return new productChangeEvent(new int[]{id}, new int[]{version}, new int[]{categoryId}, new int[]{price});
+    }
+
+    /** A product deleted. */
+    public static productChangeEvent deleted(int id) {
+        return new productChangeEvent(new int[]{id}, null, null, null);
+    }
+
+    // getters
+    public boolean isDeleted() { return categoryIds == null; }
+
+    public int size() { return ids.length; }
+
+    public int getId(int i) { return ids[i]; }
+
+    /** Only for an event that is not {@link #isDeleted() a deletion}. */
+    public int getVersion(int i) { return versions[i]; }
+
+    /** Only for an event that is not {@link #isDeleted() a deletion}. */
+    public int getCategoryId(int i) { return categoryIds[i]; }
+
+    /** Only for an event that is not {@link #isDeleted() a deletion}. */
+    public int getPrice(int i) { return prices[i]; }
+}
@@ -0,0 +1,464 @@
+package org.example.services;
+
+import org.example.dto.productNameDTO;
+import org.example.dto.productSearchResultDTO;
+import org.example.repository.productRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory positional trigram index of product names, answering case-insensitive prefix and substring
+ * searches without querying the database.
+ *
+ * <p>
+ * Every name is lower-cased character by character and split into its overlapping three-character
+ * sequences (trigrams). Each trigram maps to a list of {@code (product ID, position)} entries sorted by ID
+ * and position, and each entry also records whether the trigram starts a word. Two extra trigrams padded
+ * with a start marker record the first one and two characters, so prefixes shorter than a trigram can be
+ * looked up too.
+ * </p>
+ *
+ * <p>
+ * A search walks the entry list of the query's rarest trigram and, for each entry, seeks the entries the
+ * other trigrams must have at the following positions, galloping forward through their sorted lists.
+ * Matches are therefore found and ranked from the index alone: no name is read except those on the
+ * returned page, and the cost depends on how common the query is, not on the catalog size.
+ * </p>
+ *
+ * <p>
+ * Queries of {@value #MIN_SUBSTRING_LENGTH} or more characters match anywhere in the name; shorter queries
+ * only match at its start. Matches are ranked:
+ * <ul>
+ *   <li>the whole name, then</li>
+ *   <li>a prefix of the name, then</li>
+ *   <li>the start of a word inside the name, then</li>
+ *   <li>anywhere else,</li>
+ * </ul>
+ * with shorter names first and the lower ID breaking ties.
+ * </p>
+ *
+ * <p>
+ * The index is loaded from the database once at startup, before the web server accepts requests, and then
+ * kept up to date from the {@link nameChangeEvent}s of committed product writes, skipping any older than a
+ * change already applied to the same product (see {@link versionLog}). Searches share a read lock;
+ * writes take the write lock. It takes about six bytes per character of every indexed name, plus the names.
+ * </p>
+ */
+@Component
+public class productSearchIndex implements SmartInitializingSingleton {
+
+    /** Shortest query matched anywhere in a name; shorter queries are matched as prefixes only. */
+    public static final int MIN_SUBSTRING_LENGTH = 3;
+
+    /** Pads the start of a name so its first one and two characters form trigrams of their own. */
+    private static final char START = '\u0000';
+
+    /** Positions are stored in 15 bits; characters of longer names past it are not indexed. */
+    private static final int MAX_POSITION = Character.MAX_VALUE >>> 1;
+
+    @Autowired
+    private productRepository repo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Product names by product ID; {@code null} where there is no product. */
+    private String[] names = new String[1024];
+
+    /** Name lengths by product ID, for ranking without reading the names. */
+    private char[] lengths = new char[1024];
+
+    /** Entry lists by trigram. */
+    private final Map<Long, postings> index = new HashMap<>();
+
+    private int size;
+
+    private final versionLog versions = new versionLog(1024);
+
+    /**
+     * Loads every product name from the database.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        lock.writeLock().lock();
+        try {
+            tx.executeWithoutResult(status -> {
+                try (Stream<productNameDTO> all = repo.streamNames()) {
+                    all.forEach(p -> {
+                        versions.advance(p.getId(), p.getVersion());
+                        add(p.getId(), p.getName());
+                    });
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies committed product name changes, except those older than a change already applied to the same
+     * product; category changes are ignored.
+     *
+     * @param event the names created, changed or deleted by one write
+     */
+    @TransactionalEventListener(fallbackExecution = true)// runs right away for writes made outside a transaction
+    public void onNameChange(nameChangeEvent event) {
+        if (event.getKind() != nameChangeEvent.kind.PRODUCT) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < event.size(); i++) {
+                if (event.getName(i) == null) {
+                    versions.delete(event.getId(i));
+                    remove0(event.getId(i));
+                } else if (versions.advance(event.getId(i), event.getVersion(i))) {
+                    remove0(event.getId(i));
+                    add(event.getId(i), event.getName(i));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a product, or replaces its name if it is already indexed.
+     *
+     * @param id   the product ID
+     * @param name the product name
+     */
+    public void put(int id, String name) {
+        lock.writeLock().lock();
+        try {
+            remove0(id);
+            add(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product; does nothing if it is not indexed.
+     *
+     * @param id the product ID
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            remove0(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed products.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the products whose name contains {@code query}, ignoring case, in rank order.
+     *
+     * @param query  the text to look for; surrounding whitespace is ignored
+     * @param offset the number of ranked matches to skip
+     * @param limit  the maximum number of matches to return
+     * @return the requested slice of the ranked matches and the total number of matches
+     */
+    public productSearchResultDTO search(String query, int offset, int limit) {
+        char[] q = fold(query.trim());
+        if (q.length == 0) {
+            return new productSearchResultDTO(0, List.of());
+        }
+        lock.readLock().lock();
+        try {
+            matches found = q.length < MIN_SUBSTRING_LENGTH ? prefixMatches(q, offset + limit) : substringMatches(q, offset + limit);
+            if (found == null) {
+                return new productSearchResultDTO(0, List.of());
+            }
+            long[] ranked = found.ranked();
+            List<productNameDTO> items = new ArrayList<>(Math.max(0, ranked.length - offset));
+            for (int i = offset; i < ranked.length; i++) {
+                int id = (int) ranked[i];
+                items.add(new productNameDTO(id, names[id]));
+            }
+            return new productSearchResultDTO(found.total, items);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private matches prefixMatches(char[] q, int window) {
+        postings starts = index.get(q.length == 1 ? trigram(START, START, q[0]) : trigram(START, q[0], q[1]));
+        if (starts == null) {
+            return null;
+        }
+        matches found = new matches(window, lengths);
+        for (int i = 0; i < starts.size; i++) {
+            int id = starts.ids[i];
+            found.add(id, lengths[id] == q.length ? 0 : 1);
+        }
+        return found;
+    }
+
+    private matches substringMatches(char[] q, int window) {
+        int n = q.length - 2;// trigrams in the query, one per offset
+        postings[] lists = new postings[n];
+        int rarest = 0;
+        for (int k = 0; k < n; k++) {
+            lists[k] = index.get(trigram(q[k], q[k + 1], q[k + 2]));
+            if (lists[k] == null) {
+                return null;
+            }
+            if (lists[k].size < lists[rarest].size) {
+                rarest = k;
+            }
+        }
+        // trigrams at every third offset and the last one cover every character of the query, so only
+        // those are probed; rarer lists first, so a candidate is rejected as early as possible
+        List<Integer> probes = new ArrayList<>();
+        for (int k = 0; k < n; k += 3) {
+            probes.add(k);
+        }
+        if (n % 3 != 1) {
+            probes.add(n - 1);
+        }
+        probes.remove(Integer.valueOf(rarest));
+        probes.sort((a, b) -> Integer.compare(lists[a].size, lists[b].size));
+        int[] probe = probes.stream().mapToInt(Integer::intValue).toArray();
+
+        matches found = new matches(window, lengths);
+        int[] cursors = new int[n];
+        postings driver = lists[rarest];
+        int bestId = -1;
+        int bestRank = Integer.MAX_VALUE;
+        for (int i = 0; i < driver.size; i++) {
+            int id = driver.ids[i];
+            int start = (driver.codes[i] >>> 1) - rarest;
+            if (start < 0) {
+                continue;
+            }
+            boolean wordStart = rarest == 0 && (driver.codes[i] & 1) != 0;
+            boolean match = true;
+            for (int p = 0; p < probe.length && match; p++) {
+                int k = probe[p];
+                postings list = lists[k];
+                int at = list.seek(cursors[k], key(id, start + k));
+                cursors[k] = at;
+                match = at < list.size && list.key(at) == key(id, start + k);
+                if (match && k == 0) {
+                    wordStart = (list.codes[at] & 1) != 0;
+                }
+            }
+            if (!match) {
+                continue;
+            }
+            int rank = start == 0 ? (lengths[id] == q.length ? 0 : 1) : wordStart ? 2 : 3;
+            if (id != bestId) {// entries of one product are adjacent; keep its best occurrence
+                if (bestId >= 0) {
+                    found.add(bestId, bestRank);
+                }
+                bestId = id;
+                bestRank = rank;
+            } else {
+                bestRank = Math.min(bestRank, rank);
+            }
+        }
+        if (bestId >= 0) {
+            found.add(bestId, bestRank);
+        }
+        return found;
+    }
+
+    private void add(int id, String name) {
+        if (id >= names.length) {
+            int capacity = Math.max(id + 1, names.length * 2);
+            names = Arrays.copyOf(names, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        names[id] = name;
+        lengths[id] = (char) Math.min(name.length(), Character.MAX_VALUE);
+        size++;
+        forEachTrigram(name, (trigram, code) -> index.computeIfAbsent(trigram, t -> new postings()).add(id, code));
+    }
+
+    private void remove0(int id) {
+        if (id >= names.length || names[id] == null) {
+            return;
+        }
+        forEachTrigram(names[id], (trigram, code) -> {
+            postings p = index.get(trigram);
+            if (p != null && p.removeAll(id) && p.size == 0) {
+                index.remove(trigram);
+            }
+        });
+        names[id] = null;
+        size--;
+    }
+
+    private interface trigramSink {
+        void accept(long trigram, char code);
+    }
+
+    /**
+     * Emits every trigram of the lower-cased name with its code, {@code position << 1 | 1 if it starts a word},
+     * in ascending position order; the two trigrams padded with the start marker come first, at position 0.
+     */
+    private static void forEachTrigram(String name, trigramSink sink) {
+        char[] c = fold(name);
+        if (c.length == 0) {
+            return;
+        }
+        sink.accept(trigram(START, START, c[0]), (char) 1);
+        if (c.length > 1) {
+            sink.accept(trigram(START, c[0], c[1]), (char) 1);
+        }
+        for (int i = 0; i + 2 < c.length && i <= MAX_POSITION; i++) {
+            boolean wordStart = i == 0 || !Character.isLetterOrDigit(c[i - 1]);
+            sink.accept(trigram(c[i], c[i + 1], c[i + 2]), (char) (i << 1 | (wordStart ? 1 : 0)));
+        }
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return (long) a << 32 | (long) b << 16 | c;
+    }
+
+    private static long key(int id, int position) {
+        return (long) id << 16 | position;
+    }
+
+    private static char[] fold(String s) {
+        char[] c = s.toCharArray();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = Character.toLowerCase(c[i]);
+        }
+        return c;
+    }
+
+    /** The best {@code window} matches seen so far, and how many there were in total. */
+    private static final class matches {
+        private final int window;
+        // max-heap of packed rank keys: rank, then name length, then ID
+        private final PriorityQueue<Long> best = new PriorityQueue<>(Collections.reverseOrder());
+        private final char[] lengths;
+        private int total;
+
+        matches(int window, char[] lengths) {
+            this.window = window;
+            this.lengths = lengths;
+        }
+
+        void add(int id, int rank) {
+            total++;
+            long key = (long) rank << 48 | (long) lengths[id] << 32 | id;
+            if (best.size() < window) {
+                best.add(key);
+            } else if (key < best.peek()) {
+                best.poll();
+                best.add(key);
+            }
+        }
+
+        long[] ranked() {
+            long[] ranked = new long[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = best.poll();
+            }
+            return ranked;
+        }
+    }
+
+    /** Entries of one trigram, sorted by product ID then position. */
+    private static final class postings {
+        private int[] ids = new int[4];
+        private char[] codes = new char[4];// position << 1 | 1 if the trigram starts a word
+        private int size;
+
+        long key(int i) {
+            return productSearchIndex.key(ids[i], codes[i] >>> 1);
+        }
+
+        void add(int id, char code) {
+            int at = size;
+            if (size > 0 && key(size - 1) >= productSearchIndex.key(id, code >>> 1)) {// not the usual append
+                at = seek(0, productSearchIndex.key(id, code >>> 1));
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(codes, at, codes, at + 1, size - at);
+            ids[at] = id;
+            codes[at] = code;
+            size++;
+        }
+
+        /** Removes every entry of the product. */
+        boolean removeAll(int id) {
+            int from = seek(0, productSearchIndex.key(id, 0));
+            int to = from;
+            while (to < size && ids[to] == id) {
+                to++;
+            }
+            if (to == from) {
+                return false;
+            }
+            System.arraycopy(ids, to, ids, from, size - to);
+            System.arraycopy(codes, to, codes, from, size - to);
+            size -= to - from;
+            return true;
+        }
+
+        /**
+         * Returns the first index at or after {@code from} whose key is not below {@code target}, galloping
+         * forward in doubling steps before a binary search, so a run of ascending seeks costs little more
+         * than one pass over the list.
+         */
+        int seek(int from, long target) {
+            int step = 1;
+            int hi = from;
+            while (hi < size && key(hi) < target) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            hi = Math.min(hi, size);
+            while (from < hi) {
+                int mid = (from + hi) >>> 1;
+                if (key(mid) < target) {
+                    from = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return from;
+        }
+    }
+}
@@ -1,18 +1,52 @@
 
 package org.example.services;
 
+import org.example.config.cacheConfig;
+import org.example.config.versionedCache;
+import org.example.dto.bulkImportResultDTO;
+import org.example.dto.productBatchDTO;
+import org.example.dto.productFieldsDTO;
+import org.example.dto.productPageDTO;
 import org.example.dto.productPatchDTO;
 import org.example.dto.productRequestDTO;
+import org.example.dto.productSearchResultDTO;
+import org.example.exception.constraintViolations;
 import org.example.exception.customException;
 import org.example.model.Category;
 import org.example.model.Product;
 import org.example.repository.categoryRepository;
 import org.example.repository.productRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 /**
  * Service layer handling business logic, validation, and data operations for {@link Product} entities.
  *
@@ -25,8 +59,13 @@ import java.util.Map;
  * <p>
  * Major responsibilities include:
  * <ul>
- *   <li>Retrieving all products or a product by its unique identifier</li>
- *   <li>Creating products while checking for duplicate names, valid category IDs, and input constraints</li>
+ *   <li>Retrieving all products, one keyset page of products (optionally filtered by category and price and ordered by price), or a product by its unique identifier</li>
+ *   <li>Reading only the requested fields of a page through a projection query</li>
+ *   <li>Resolving many product IDs at once, from the product cache and one {@code IN} query</li>
+ *   <li>Streaming the whole catalog for exports without holding it in memory</li>
+ *   <li>Searching product names through an in-memory index</li>
+ *   <li>Creating products with a single insert: the category comes from the category cache and duplicate names are rejected by a unique constraint</li>
+ *   <li>Importing many products at once with a fixed number of lookups and batched inserts</li>
  *   <li>Updating product fields with comprehensive validation</li>
  *   <li>Safely deleting products, ensuring they exist before removal</li>
  * </ul>
@@ -37,12 +76,25 @@ import java.util.Map;
  * {@link customException} subclasses to aid in diagnostics and client feedback.
  * </p>
  *
+ * <p>
+ * Single-product reads go through the {@value cacheConfig#PRODUCTS} cache; creating, updating and
+ * deleting a product keeps that cache in step for exactly that product, and updating or deleting it
+ * also drops its response JSON from {@value cacheConfig#PRODUCT_JSON}.
+ * </p>
+ *
+ * <p>
+ * Every write that creates, renames or deletes products publishes a {@link nameChangeEvent}, which the
+ * in-memory name indexes apply once the write has committed; writes that create, delete, reprice or move
+ * products also publish a {@link productChangeEvent} for the per-category statistics.
+ * </p>
+ *
  * @see org.example.model.Product
  * @see productRepository
  * @see categoryRepository
  * @see customException
  */
 @Service
+@Timed("service.calls")// one timer per public method, tagged with class and method
 public class productService {
 
     @Autowired
@@ -51,6 +103,52 @@ public class productService {
     @Autowired
     private categoryRepository categoryRepo;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private productSearchIndex searchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // rows per JDBC batch; the persistence context is flushed and cleared at the same interval
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
+
+    // concurrent getProductById calls for the same ID share one cache/database look-up
+    private final singleFlight<Integer, Product> productLoads = new singleFlight<>();
+
+    @Value("${app.single-flight.max-wait-ms:2000}")
+    private long maxLoadWaitMillis = 2000;
+
+    /** Largest page size a client may ask for. */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /** Listing order by ascending ID, the default. */
+    public static final String SORT_BY_ID = "id";
+
+    /** Listing order by ascending price, ties broken by ID. */
+    public static final String SORT_BY_PRICE = "price";
+
+    /** Most rows accepted by one import; keeps the {@code IN} lists of an import within JDBC parameter limits. */
+    public static final int MAX_IMPORT_ROWS = 20_000;
+
+    /** Largest number of search results a client may ask for at once. */
+    public static final int MAX_SEARCH_LIMIT = 100;
+
+    /** How deep into the ranked search results a client may page ({@code offset + limit}). */
+    public static final int MAX_SEARCH_WINDOW = 1_000;
+
+    /** Expected version meaning {@code If-Match: *}: any version, but the product must exist. No product has it. */
+    public static final int ANY_VERSION = -1;
+
     /**
      * Retrieves all products from the repository.
      *
@@ -61,16 +159,289 @@ public class productService {
     }
 
     /**
-     * Retrieves a product by its ID.
+     * Retrieves one keyset page of products, optionally filtered by category and price range,
+     * ordered by ID or by price.
+     * <p>
+     * One extra row is read to find out whether another page follows, so the
+     * query never needs a count and memory per call is bounded by {@code limit}.
+     * In price order the cursor carries the last price as well as the last ID, so the next page
+     * continues from that position in the price index rather than skipping rows.
+     * The cursor is only meaningful with the same filters and order it was returned for.
+     * </p>
+     *
+     * @param categoryId the category to list, or null for all products.
+     * @param minPrice the lowest price to include, or null.
+     * @param maxPrice the highest price to include, or null.
+     * @param sort {@link #SORT_BY_ID} or {@link #SORT_BY_PRICE}.
+     * @param after the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit the page size, between 1 and {@link #MAX_PAGE_SIZE}.
+     * @return the page of products and the cursor of the next page (null on the last page).
+     * @throws customException.ValidationException if the limit, price range or sort is invalid, or the cursor is malformed.
+     */
+    public productPageDTO<Product> getProductsPage(Integer categoryId, Integer minPrice, Integer maxPrice, String sort,
+                                          String after, int limit) {
+        keyset from = keyset(minPrice, maxPrice, sort, after, limit);
+        List<Product> rows = repo.findPage(categoryId, minPrice, maxPrice, from.byPrice(), from.afterPrice(), from.afterId(), limit + 1);
+        if (rows.size() <= limit) {
+            return new productPageDTO<>(rows, null);
+        }
+        List<Product> items = rows.subList(0, limit);
+        Product last = items.get(limit - 1);
+        return new productPageDTO<>(items, from.byPrice() ? encodeCursor(last.getPrice(), last.getId()) : encodeCursor(last.getId()));
+    }
+
+    /**
+     * Retrieves the same page as {@link #getProductsPage(Integer, Integer, Integer, String, String, int)},
+     * with only the requested fields of each product.
+     * <p>
+     * Only the requested columns (and those the cursor is built from) are read, by a projection query
+     * that loads no entities; see {@link productRepository#findPageFields}. The cursors of both methods
+     * are interchangeable.
+     * </p>
+     *
+     * @param fields the fields to return, from {@link #parseFields(String, List)} with {@link productFieldsDTO#FIELDS}.
+     * @return the page of products with only those fields set, and the cursor of the next page (null on the last page).
+     * @throws customException.ValidationException if the limit, price range or sort is invalid, or the cursor is malformed.
+     */
+    public productPageDTO<productFieldsDTO> getProductFieldsPage(Set<String> fields, Integer categoryId, Integer minPrice,
+                                                                 Integer maxPrice, String sort, String after, int limit) {
+        keyset from = keyset(minPrice, maxPrice, sort, after, limit);
+        List<Tuple> rows = repo.findPageFields(fields, categoryId, minPrice, maxPrice, from.byPrice(), from.afterPrice(), from.afterId(), limit + 1);
+        return fieldsPage(fields, rows, limit, from.byPrice());
+    }
+
+    /**
+     * Turns projection rows read with one extra row into a page, with the cursor of the next page if there is one.
+     * Shared with {@link categoryService#getCategoryProductFields(int, Set, String, int)}.
+     */
+    static productPageDTO<productFieldsDTO> fieldsPage(Set<String> fields, List<Tuple> rows, int limit, boolean byPrice) {
+        int size = Math.min(rows.size(), limit);
+        List<productFieldsDTO> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Tuple row = rows.get(i);
+            items.add(new productFieldsDTO(
+                    fields.contains("id") ? row.get("id", Integer.class) : null,
+                    fields.contains("name") ? row.get("name", String.class) : null,
+                    fields.contains("price") ? row.get("price", Integer.class) : null));
+        }
+        if (rows.size() <= limit) {
+            return new productPageDTO<>(items, null);
+        }
+        Tuple last = rows.get(limit - 1);
+        int lastId = last.get("id", Integer.class);
+        return new productPageDTO<>(items, byPrice ? encodeCursor(last.get("price", Integer.class), lastId) : encodeCursor(lastId));
+    }
+
+    /**
+     * Parses a {@code fields=} parameter, e.g. {@code "id,price"}.
+     *
+     * @param fields the comma-separated field names.
+     * @param known  the fields that can be requested, in response order.
+     * @return the requested fields, each once, in the order of {@code known}.
+     * @throws customException.ValidationException if no field is given or a field is not one of {@code known}.
+     */
+    public static Set<String> parseFields(String fields, List<String> known) {
+        Set<String> requested = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String f = field.trim();
+            if (f.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(f)) {
+                throw new customException.ValidationException("Unknown field '" + f + "'; choose from " + String.join(", ", known));
+            }
+            requested.add(f);
+        }
+        if (requested.isEmpty()) {
+            throw new customException.ValidationException("fields must name at least one of " + String.join(", ", known));
+        }
+        Set<String> ordered = new LinkedHashSet<>();
+        for (String f : known) {
+            if (requested.contains(f)) {
+                ordered.add(f);
+            }
+        }
+        return ordered;
+    }
+
+    /** Where a page starts: its order and the position after the previous page's last row. */
+    private record keyset(boolean byPrice, Integer afterPrice, int afterId) {
+    }
+
+    private static keyset keyset(Integer minPrice, Integer maxPrice, String sort, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new customException.ValidationException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new customException.ValidationException("minPrice cannot be greater than maxPrice");
+        }
+        boolean byPrice;
+        if (SORT_BY_ID.equals(sort)) {
+            byPrice = false;
+        } else if (SORT_BY_PRICE.equals(sort)) {
+            byPrice = true;
+        } else {
+            throw new customException.ValidationException("Sort must be '" + SORT_BY_ID + "' or '" + SORT_BY_PRICE + "'");
+        }
+        if (after != null && byPrice) {
+            int[] position = decodePriceCursor(after);
+            return new keyset(true, position[0], position[1]);
+        }
+        return new keyset(byPrice, null, after == null ? 0 : decodeCursor(after));
+    }
+
+    /**
+     * Streams every product, in ID order, to the given sink.
+     * <p>
+     * Products are read over a JDBC cursor and detached from the persistence context as soon as the
+     * sink has consumed them, so heap use stays constant however large the catalog is.
+     * </p>
+     *
+     * @param sink receives each product; it must not keep references to them.
+     * @return the number of products exported.
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(Consumer<Product> sink) {
+        long count = 0;
+        try (Stream<Product> products = repo.streamAll()) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                sink.accept(product);
+                entityManager.detach(product);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // cursors are base64url so clients treat them as opaque and we can change what they carry
+    static String encodeCursor(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Integer.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static int decodeCursor(String cursor) {
+        try {
+            int id = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+            if (id < 0) {
+                throw new NumberFormatException();
+            }
+            return id;
+        } catch (IllegalArgumentException e) {// NumberFormatException is an IllegalArgumentException too
+            throw new customException.ValidationException("Invalid cursor '" + cursor + "'");
+        }
+    }
+
+    static String encodeCursor(int lastPrice, int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((lastPrice + ":" + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** @return the last price and last ID of a price-ordered cursor. */
+    static int[] decodePriceCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":", -1);
+            if (parts.length != 2) {
+                throw new NumberFormatException();
+            }
+            int price = Integer.parseInt(parts[0]);
+            int id = Integer.parseInt(parts[1]);
+            if (id < 0) {
+                throw new NumberFormatException();
+            }
+            return new int[]{price, id};
+        } catch (IllegalArgumentException e) {
+            throw new customException.ValidationException("Invalid cursor '" + cursor + "'");
+        }
+    }
+
+    /**
+     * Retrieves a product by its ID, from the product cache when it is there.
+     * <p>
+     * Concurrent calls for the same ID share one look-up, so a burst of requests for a product that is
+     * not cached yet runs a single query; see {@link singleFlight}.
+     * </p>
      *
      * @param id the unique identifier of the product to retrieve.
      * @return the Product object with the specified ID.
      * @throws customException.ResourceNotFoundException if no product with the given ID is found.
      */
     public Product getProductById(int id) {
-        return repo.findById(id)
+        return productLoads.run(id, maxLoadWaitMillis, () -> repo.findCachedById(id)
                 .orElseThrow(() -> new customException.ResourceNotFoundException(
-                        "Product with ID " + id + " not found"));
+                        "Product with ID " + id + " not found")));
+    }
+
+    /**
+     * Searches product names for {@code query}, ignoring case, using the in-memory {@link productSearchIndex}.
+     * <p>
+     * Queries of three or more characters match anywhere in a name, shorter ones match name prefixes.
+     * Results are ranked whole-name, prefix, word-start, then other matches; the database is not queried.
+     * </p>
+     *
+     * @param query the text to look for.
+     * @param offset the number of ranked results to skip.
+     * @param limit the page size, between 1 and {@link #MAX_SEARCH_LIMIT}.
+     * @return the page of matching product IDs and names, and the total number of matches.
+     * @throws customException.ValidationException if the query is blank, or the limit or offset is out of range.
+     */
+    public productSearchResultDTO searchProducts(String query, int offset, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new customException.ValidationException("Search query cannot be empty");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new customException.ValidationException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        if (offset < 0 || offset + limit > MAX_SEARCH_WINDOW) {
+            throw new customException.ValidationException("Offset plus limit must be between 1 and " + MAX_SEARCH_WINDOW);
+        }
+        return searchIndex.search(query, offset, limit);
+    }
+
+    /**
+     * Retrieves the products with the given IDs, in the order the IDs are given.
+     * <p>
+     * IDs found in the {@value cacheConfig#PRODUCTS} cache (when that cache is configured) are served
+     * from it; all the others are read with a single {@code IN} query on the primary key and added to
+     * the cache, unless an update has cached a newer version of them meanwhile. Unknown IDs are reported
+     * rather than failing the request, and a repeated ID is resolved once.
+     * </p>
+     *
+     * @param ids the product IDs to look up; at most {@link org.example.dto.productBatchGetRequestDTO#MAX_IDS}.
+     * @return the products found and the IDs not found, each in request order.
+     */
+    public productBatchDTO getProductsByIds(List<Integer> ids) {
+        Set<Integer> requested = new LinkedHashSet<>(ids);
+        Cache cache = cacheManager.getCache(cacheConfig.PRODUCTS);
+        Map<Integer, Product> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (Integer id : requested) {
+            Product cached = cache == null ? null : cache.get(id, Product.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (Product product : repo.findAllById(misses)) {
+                found.put(product.getId(), product);
+                if (cache != null) {
+                    versionedCache.putIfNewer(cache, product.getId(), product);
+                }
+            }
+        }
+
+        List<Product> items = new ArrayList<>(found.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : requested) {
+            Product product = found.get(id);
+            if (product != null) {
+                items.add(product);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new productBatchDTO(items, missing);
     }
     /**
      * Creates a new product from the provided request data.
@@ -87,21 +458,149 @@ public class productService {
 
 
 
+    @CachePut(cacheNames = cacheConfig.PRODUCTS, key = "#result.id")
     public Product createProduct(productRequestDTO dto) {
-        if (repo.existsByNameIgnoreCase(dto.getName().trim())) {
-            throw new customException.DuplicateResourceException("Product with name '" + dto.getName() + "' already exists");
-        }
-        if (!categoryRepo.existsById(dto.getCategoryId())) {
-            throw new customException.ResourceNotFoundException("Category with ID " + dto.getCategoryId() + " does not exist");
-        }
-        // Check if the category ID exists
-        Category category = categoryRepo.findById(dto.getCategoryId())
+        // memory lookup once the category is cached
+        Category category = categoryRepo.findCachedById(dto.getCategoryId())
                 .orElseThrow(() -> new customException.ResourceNotFoundException("Category with ID " + dto.getCategoryId() + " does not exist"));
         Product product = new Product();
         product.setName(dto.getName().trim());
         product.setPrice(dto.getPrice());
         product.setCategory(category);
-        return repo.save(product);
+        Product saved;
+        try {
+            // the unique name_key constraint rejects duplicate names, so no lookup by name runs first
+            saved = repo.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            throw translateWriteFailure(e, dto.getName(), dto.getCategoryId());
+        }
+        events.publishEvent(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, saved.getId(), saved.getVersion(), saved.getName()));
+        events.publishEvent(productChangeEvent.saved(saved.getId(), saved.getVersion(), category.getId(), saved.getPrice()));
+        return saved;
+    }
+
+    /**
+     * Imports many products in one transaction, reporting the rows that could not be imported.
+     * <p>
+     * The whole batch is validated in memory first. Then one query resolves every referenced category
+     * and one query finds the names that are already taken, whatever the batch size. The remaining rows
+     * are inserted through Hibernate's JDBC batching, flushing and clearing the persistence context every
+     * batch so memory stays flat. Rejected rows (invalid fields, unknown category, name already taken or
+     * repeated within the batch) are reported and skipped; the others are still imported.
+     * </p>
+     *
+     * @param rows the products to create, in request order.
+     * @return the number of created products and one error per rejected row.
+     * @throws customException.ValidationException if there are no rows or more than {@link #MAX_IMPORT_ROWS}.
+     * @throws customException.DuplicateResourceException if a name is taken concurrently during the import; nothing is imported then.
+     * @throws customException.ResourceNotFoundException if a referenced category is deleted concurrently; nothing is imported then.
+     */
+    @Transactional
+    public bulkImportResultDTO importProducts(List<productRequestDTO> rows) {
+        if (rows.isEmpty() || rows.size() > MAX_IMPORT_ROWS) {
+            throw new customException.ValidationException("An import must contain between 1 and " + MAX_IMPORT_ROWS + " products");
+        }
+        List<bulkImportResultDTO.rowError> errors = new ArrayList<>();
+        boolean[] rejected = new boolean[rows.size()];
+        Set<Integer> categoryIds = new HashSet<>();
+        Set<String> nameKeys = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            productRequestDTO dto = rows.get(i);
+            String problem = dto == null ? "Product cannot be null" : firstViolation(dto);
+            if (problem != null) {
+                errors.add(new bulkImportResultDTO.rowError(i + 1, problem));
+                rejected[i] = true;
+                continue;
+            }
+            categoryIds.add(dto.getCategoryId());
+            nameKeys.add(Product.nameKey(dto.getName()));
+        }
+        if (categoryIds.isEmpty()) {
+            return new bulkImportResultDTO(0, errors);
+        }
+
+        Set<Integer> knownCategories = new HashSet<>(categoryRepo.findExistingIds(categoryIds));
+        Set<String> takenNames = new HashSet<>(repo.findExistingNameKeys(nameKeys));
+        int created = 0;
+        int[] createdIds = new int[rows.size()];
+        String[] createdNames = new String[rows.size()];
+        int[] createdCategories = new int[rows.size()];
+        int[] createdPrices = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            if (rejected[i]) {
+                continue;
+            }
+            productRequestDTO dto = rows.get(i);
+            if (!knownCategories.contains(dto.getCategoryId())) {
+                errors.add(new bulkImportResultDTO.rowError(i + 1, "Category with ID " + dto.getCategoryId() + " does not exist"));
+                continue;
+            }
+            if (!takenNames.add(Product.nameKey(dto.getName()))) {// also catches repeats within the batch
+                errors.add(new bulkImportResultDTO.rowError(i + 1, "Product with name '" + dto.getName().trim() + "' already exists"));
+                continue;
+            }
+            Product product = new Product();
+            product.setName(dto.getName().trim());
+            product.setPrice(dto.getPrice());
+            product.setCategory(categoryRepo.getReferenceById(dto.getCategoryId()));// proxy, no select
+            repo.save(product);// assigns the ID
+            createdIds[created] = product.getId();
+            createdNames[created] = product.getName();
+            createdCategories[created] = dto.getCategoryId();
+            createdPrices[created] = product.getPrice();
+            if (++created % batchSize == 0) {
+                flushImportBatch();
+            }
+        }
+        flushImportBatch();
+        if (created > 0) {
+            int[] versions = new int[created];// all new, at the initial version 0
+            events.publishEvent(new nameChangeEvent(nameChangeEvent.kind.PRODUCT,
+                    Arrays.copyOf(createdIds, created), versions, Arrays.copyOf(createdNames, created)));
+            events.publishEvent(new productChangeEvent(Arrays.copyOf(createdIds, created), versions,
+                    Arrays.copyOf(createdCategories, created), Arrays.copyOf(createdPrices, created)));
+        }
+        errors.sort(Comparator.comparingInt(bulkImportResultDTO.rowError::getRow));
+        return new bulkImportResultDTO(created, errors);
+    }
+
+    private String firstViolation(productRequestDTO dto) {
+        Set<ConstraintViolation<productRequestDTO>> violations = validator.validate(dto);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    // sends the pending inserts as JDBC batches, then drops the written products from the persistence context
+    private void flushImportBatch() {
+        try {
+            repo.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (constraintViolations.violates(e, Product.NAME_KEY_CONSTRAINT)) {// taken since findExistingNameKeys ran
+                throw new customException.DuplicateResourceException("A product name in the import was taken concurrently; nothing was imported");
+            }
+            if (constraintViolations.violates(e, Product.CATEGORY_FK)) {// deleted since findExistingIds ran
+                throw new customException.ResourceNotFoundException("A category referenced by the import was deleted concurrently; nothing was imported");
+            }
+            throw e;
+        }
+        entityManager.clear();
+    }
+
+    /**
+     * Maps a constraint violation raised by a product write to the matching domain exception.
+     *
+     * @param e the exception thrown by the repository.
+     * @param name the product name that was written.
+     * @param categoryId the category ID that was written.
+     * @return the exception to throw; {@code e} itself if no known constraint was violated.
+     */
+    private RuntimeException translateWriteFailure(DataIntegrityViolationException e, String name, Integer categoryId) {
+        if (constraintViolations.violates(e, Product.NAME_KEY_CONSTRAINT)) {
+            return new customException.DuplicateResourceException("Product with name '" + name + "' already exists");
+        }
+        if (constraintViolations.violates(e, Product.CATEGORY_FK)) {// category deleted after it was cached
+            return new customException.ResourceNotFoundException("Category with ID " + categoryId + " does not exist");
+        }
+        return e;
     }
     /**
      * Updates an existing product identified by its ID with the given field updates.
@@ -156,44 +655,75 @@ public class productService {
 //
 //        return repo.save(product);
 //    }
-    public Product updateProduct(int id, productPatchDTO dto) {
-        Product product = getProductById(id);
-
-        // Track update so we can reject PATCH with empty body
-        boolean hasUpdate = false;
-
+    /**
+     * Updates the given fields of a product with a single {@code UPDATE}; the product is not read first.
+     * <p>
+     * With an {@code expectedVersion} the update only applies if nobody changed the product since that
+     * version was read; otherwise it fails instead of silently overwriting the other change. The updated
+     * product is read back by ID afterwards to build the response.
+     * </p>
+     *
+     * @param id the ID of the product to update.
+     * @param expectedVersion the version from the client's {@code If-Match}, or {@code null} to update unconditionally;
+     *                        {@link #ANY_VERSION} ({@code If-Match: *}) updates any version but requires the product to exist.
+     * @param dto the fields to update; at least one must be set.
+     * @return the updated Product object.
+     * @throws customException.ResourceNotFoundException if the product or category does not exist.
+     * @throws customException.ValidationException if provided values are invalid (empty name, price ≤ 0).
+     * @throws customException.DuplicateResourceException if the new name conflicts with another product's name.
+     * @throws customException.PreconditionFailedException if the product is no longer at {@code expectedVersion},
+     *                                                    or does not exist and {@code expectedVersion} is {@link #ANY_VERSION}.
+     */
+    @Transactional// the update and the read-back see the same row
+    @Caching(put = @CachePut(cacheNames = cacheConfig.PRODUCTS, key = "#id"),
+            evict = @CacheEvict(cacheNames = cacheConfig.PRODUCT_JSON, key = "#id"))
+    public Product updateProduct(int id, Integer expectedVersion, productPatchDTO dto) {
+        String newName = null;
         if (dto.getName() != null) {
-            String newName = dto.getName().trim();
+            newName = dto.getName().trim();
             if (newName.isEmpty()) {
                 throw new customException.ValidationException("Product name cannot be empty");
             }
-            if (repo.existsByNameIgnoreCase(newName) && !product.getName().equalsIgnoreCase(newName)) {
-                throw new customException.DuplicateResourceException("Product with name '" + newName + "' already exists");
-            }
-            product.setName(newName);
-            hasUpdate = true;
         }
-
-        if (dto.getPrice() != null) {
-            if (dto.getPrice() <= 0) {
-                throw new customException.ValidationException("Price must be greater than 0");
-            }
-            product.setPrice(dto.getPrice());
-            hasUpdate = true;
+        if (dto.getPrice() != null && dto.getPrice() <= 0) {
+            throw new customException.ValidationException("Price must be greater than 0");
         }
-
-        if (dto.getCategoryId() != null) {
-            Category category = categoryRepo.findById(dto.getCategoryId())
-                    .orElseThrow(() -> new customException.ResourceNotFoundException("Category with ID " + dto.getCategoryId() + " does not exist"));
-            product.setCategory(category); // Set the Category object, not the categoryId
-            hasUpdate = true;
+        if (dto.getCategoryId() != null && categoryRepo.findCachedById(dto.getCategoryId()).isEmpty()) {
+            throw new customException.ResourceNotFoundException("Category with ID " + dto.getCategoryId() + " does not exist");
         }
-
-        if (!hasUpdate) {
+        if (newName == null && dto.getPrice() == null && dto.getCategoryId() == null) {
             throw new customException.ValidationException("At least one field must be provided for update");
         }
 
-        return repo.save(product);
+        boolean mustExist = expectedVersion != null && expectedVersion == ANY_VERSION;
+        int updated;
+        try {
+            // uniqueness is checked by the uk_products_name_key constraint
+            updated = repo.updateFields(id, mustExist ? null : expectedVersion, newName, dto.getPrice(), dto.getCategoryId());
+        } catch (DataIntegrityViolationException e) {
+            throw translateWriteFailure(e, newName, dto.getCategoryId());
+        }
+        if (updated == 0) {
+            // only a failed update pays for telling the two causes apart
+            if (mustExist) {// the update was unconditional, so the product is missing
+                throw new customException.PreconditionFailedException("Product with ID " + id + " does not exist");
+            }
+            if (!repo.existsById(id)) {
+                throw new customException.ResourceNotFoundException("Product with ID " + id + " not found");
+            }
+            throw new customException.PreconditionFailedException(
+                    "Product with ID " + id + " has changed since version " + expectedVersion);
+        }
+        // read past the cache: the cached instance is stale now
+        Product product = repo.findById(id).orElseThrow();
+        if (newName != null) {
+            events.publishEvent(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, id, product.getVersion(), product.getName()));
+        }
+        if (dto.getPrice() != null || dto.getCategoryId() != null) {
+            // getId() on the lazy category proxy reads the foreign key, no select
+            events.publishEvent(productChangeEvent.saved(id, product.getVersion(), product.getCategory().getId(), product.getPrice()));
+        }
+        return product;
     }
 
     /**
@@ -203,11 +733,14 @@ public class productService {
      * @throws customException.ResourceNotFoundException if no product with the given ID exists.
      */
 
+    @CacheEvict(cacheNames = {cacheConfig.PRODUCTS, cacheConfig.PRODUCT_JSON}, key = "#id")
     public void deleteProduct(int id) {
         if (!repo.existsById(id)) {
             throw new customException.ResourceNotFoundException(
                     "Product with ID " + id + " not found, cannot delete");
         }
         repo.deleteById(id);
+        events.publishEvent(nameChangeEvent.deleted(nameChangeEvent.kind.PRODUCT, id));
+        events.publishEvent(productChangeEvent.deleted(id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package org.example.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent calls for the same key share one execution instead of each running their own.
+ *
+ * <p>
+ * The first caller for a key runs the call; callers arriving while it is still running wait for its
+ * result, or get the exception it threw (the same instance, e.g. the
+ * {@link org.example.exception.customException.ResourceNotFoundException} of an unknown ID). Nothing is
+ * remembered once the call returns: the next caller for the key starts a new one, so results are never
+ * staler than those of the call itself.
+ * </p>
+ *
+ * <p>
+ * Waiting is bounded: a caller that has waited {@code maxWaitMillis} for a call that is stuck, or is
+ * interrupted while waiting, stops waiting and runs the call itself.
+ * </p>
+ *
+ * @param <K> the key type; keys are compared with {@code equals}
+ * @param <V> the result type
+ */
+final class singleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code call}, or waits for the run already in flight for the same key.
+     *
+     * @param key           identifies calls that return the same result
+     * @param maxWaitMillis how long to wait for a run started by another caller before running it here
+     * @param call          the call to run
+     * @return the result of this or the shared run
+     */
+    V run(K key, long maxWaitMillis, Supplier<V> call) {
+        CompletableFuture<V> shared = inFlight.get(key);// lock-free look-up first: hot keys are mostly joined
+        if (shared == null) {
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            shared = inFlight.putIfAbsent(key, mine);
+            if (shared == null) {
+                return lead(key, mine, call);
+            }
+        }
+        try {
+            return shared.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);// a Supplier cannot throw checked exceptions
+        } catch (TimeoutException e) {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return call.get();
+        }
+    }
+
+    /** @return the number of keys with a run in flight. */
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Supplier<V> call) {
+        try {
+            V result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
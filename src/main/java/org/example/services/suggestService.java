@@ -0,0 +1,48 @@
+package org.example.services;
+
+import org.example.dto.suggestionDTO;
+import org.example.exception.customException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service class that completes typed prefixes to product and category names.
+ * <p>
+ * Lookups are answered from {@link nameSuggestIndex} without touching the database; this class
+ * only validates the request.
+ * </p>
+ *
+ * @see nameSuggestIndex
+ * @see customException
+ */
+@Service
+@Timed("service.calls")// one timer per public method, tagged with class and method
+public class suggestService {
+    /** Most suggestions one request can ask for. */
+    public static final int MAX_SUGGESTIONS = nameSuggestIndex.TOP_K;
+
+    @Autowired
+    private nameSuggestIndex suggestIndex;
+
+    /**
+     * Returns the product and category names starting with a prefix, ignoring case.
+     * Shorter names come first, then names in alphabetical order.
+     *
+     * @param prefix the text typed so far.
+     * @param limit the maximum number of names, between 1 and {@link #MAX_SUGGESTIONS}.
+     * @return the matching names with their type and ID, best first; empty if none match.
+     * @throws customException.ValidationException if the prefix is blank or the limit is out of range.
+     */
+    public List<suggestionDTO> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new customException.ValidationException("Prefix cannot be empty");
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new customException.ValidationException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return suggestIndex.suggest(prefix, limit);
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.services;
+
+import java.util.Arrays;
+
+/**
+ * The newest {@code @Version} an in-memory index has applied for each ID, so that a change arriving after a
+ * newer one for the same row can be recognised and dropped.
+ *
+ * <p>
+ * The indexes are updated by {@code @TransactionalEventListener}s, which run after each commit on the
+ * committing thread: two writes to the same row that commit close together can have their events applied
+ * in either order. Deletions are remembered too, since IDs come from a sequence and are never reused: no
+ * change to a deleted row can be newer than its deletion.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe; the indexes call it under their write lock.
+ * </p>
+ */
+final class versionLog {
+
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private int[] applied;// version + 1 by ID, 0 if nothing was applied, DELETED after a deletion
+
+    versionLog(int capacity) {
+        applied = new int[capacity];
+    }
+
+    /**
+     * Records a change to a row unless a newer one was already applied.
+     *
+     * @param id      the row ID
+     * @param version the row's version after the change
+     * @return whether the change is newer than everything applied so far, and should be applied
+     */
+    boolean advance(int id, int version) {
+        if (id >= applied.length) {
+            applied = Arrays.copyOf(applied, Math.max(id + 1, applied.length * 2));
+        }
+        if (applied[id] > version) {// also true for a deleted row, and for a repeat of the last version
+            return false;
+        }
+        applied[id] = version + 1;
+        return true;
+    }
+
+    /**
+     * Records the deletion of a row.
+     *
+     * @param id the row ID
+     * @return whether the row was not already deleted
+     */
+    boolean delete(int id) {
+        if (id >= applied.length) {
+            applied = Arrays.copyOf(applied, Math.max(id + 1, applied.length * 2));
+        }
+        if (applied[id] == DELETED) {
+            return false;
+        }
+        applied[id] = DELETED;
+        return true;
+    }
+}
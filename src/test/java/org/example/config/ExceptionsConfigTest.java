@@ -0,0 +1,28 @@
+package org.example.config;
+
+import org.example.exception.customException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that {@link exceptionsConfig} applies {@code app.exceptions.stack-traces} when the context starts.
+ */
+@SpringJUnitConfig(exceptionsConfig.class)
+@TestPropertySource(properties = "app.exceptions.stack-traces=true")
+class ExceptionsConfigTest {
+
+    @AfterEach
+    void tearDown() {
+        customException.setCaptureStackTraces(false);
+    }
+
+    @Test
+    void stackTraceSetting_IsAppliedAtStartup() {
+        assertTrue(customException.isCaptureStackTraces());
+        assertTrue(new customException.ValidationException("invalid").getStackTrace().length > 0);
+    }
+}
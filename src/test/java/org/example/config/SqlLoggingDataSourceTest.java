@@ -0,0 +1,115 @@
+package org.example.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link sqlLoggingDataSource} and {@link sqlLog} against an in-memory H2 database:
+ * which statements are logged, and what an entry records.
+ */
+class SqlLoggingDataSourceTest {
+
+    private final List<sqlLog.entry> logged = new CopyOnWriteArrayList<>();
+    private final sqlLog log = new sqlLog(100, logged::add);
+
+    @AfterEach
+    void closeLog() throws InterruptedException {
+        log.close();
+    }
+
+    private sqlLoggingDataSource dataSource(long slowMillis, double sampleRate) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:sqllog-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        return new sqlLoggingDataSource(h2, log, slowMillis, sampleRate);
+    }
+
+    @Test
+    void queryOverThreshold_LogsParameterTypesAndRowsRead() throws Exception {
+        try (Connection c = dataSource(0, 0).getConnection()) {
+            try (Statement s = c.createStatement()) {
+                s.execute("create table t(id int, name varchar(20))");
+                s.executeUpdate("insert into t values (1, 'a'), (2, 'b'), (3, 'c')");
+            }
+            try (PreparedStatement ps = c.prepareStatement("select * from t where id > ? and name <> ?")) {
+                ps.setInt(1, 1);
+                ps.setString(2, "x");
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // read every row
+                    }
+                }
+            }
+        }
+
+        sqlLog.entry query = awaitEntry("select * from t where id > ? and name <> ?");
+        assertTrue(query.slow());
+        assertEquals(2, query.rows());
+        assertEquals(List.of("Int", "String"), query.parameters());
+        assertEquals(3, awaitEntry("insert into t values (1, 'a'), (2, 'b'), (3, 'c')").rows());
+        assertTrue(query.toString().contains("params [Int, String]"));
+    }
+
+    @Test
+    void batch_LogsBatchSizeAndAffectedRows() throws Exception {
+        try (Connection c = dataSource(0, 0).getConnection()) {
+            try (Statement s = c.createStatement()) {
+                s.execute("create table t(id int)");
+            }
+            try (PreparedStatement ps = c.prepareStatement("insert into t values (?)")) {
+                for (int i = 0; i < 3; i++) {
+                    ps.setInt(1, i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+
+        sqlLog.entry batch = awaitEntry("insert into t values (?)");
+        assertEquals(3, batch.batchSize());
+        assertEquals(3, batch.rows());
+    }
+
+    @Test
+    void fastStatement_WithoutSampling_IsNotLogged() throws Exception {
+        try (Connection c = dataSource(60_000, 0).getConnection(); Statement s = c.createStatement()) {
+            s.execute("create table t(id int)");
+            s.executeQuery("select * from t").close();
+        }
+        log.close();
+
+        assertTrue(logged.isEmpty());
+    }
+
+    @Test
+    void fastStatement_WithFullSampling_IsLoggedAsSampled() throws Exception {
+        try (Connection c = dataSource(60_000, 1).getConnection(); Statement s = c.createStatement()) {
+            s.execute("create table t(id int)");
+        }
+
+        assertFalse(awaitEntry("create table t(id int)").slow());
+    }
+
+    private sqlLog.entry awaitEntry(String sql) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            for (sqlLog.entry e : logged) {
+                if (e.sql().equals(sql)) {
+                    return e;
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("not logged: " + sql + ", got " + logged);
+    }
+}
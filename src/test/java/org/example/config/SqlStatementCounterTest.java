@@ -0,0 +1,70 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link sqlStatementCounter} and {@link sqlStatementsPerRequestFilter}:
+ * statements are counted in total and attributed to the request running on the same thread.
+ */
+class SqlStatementCounterTest {
+
+    private SimpleMeterRegistry registry;
+    private sqlStatementCounter counter;
+    private sqlStatementsPerRequestFilter filter;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        counter = new sqlStatementCounter(registry);
+        filter = new sqlStatementsPerRequestFilter(registry);
+    }
+
+    @Test
+    void inspect_ReturnsStatementUnchangedAndCountsIt() {
+        assertEquals("select 1", counter.inspect("select 1"));
+
+        assertEquals(1.0, registry.get(sqlStatementCounter.TOTAL_METRIC).counter().count());
+    }
+
+    @Test
+    void filter_RecordsStatementsRunDuringTheRequestByRoute() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/categories/7");
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/categories/{id}");
+                counter.inspect("select c from categories");
+                counter.inspect("select p from products");
+            }
+        });
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        DistributionSummary summary = registry.get(sqlStatementsPerRequestFilter.METRIC)
+                .tag("method", "GET").tag("uri", "/api/categories/{id}").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+    }
+
+    @Test
+    void inspect_OutsideRequest_OnlyCountsTotal() throws Exception {
+        counter.inspect("select 1");
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(0.0, registry.get(sqlStatementsPerRequestFilter.METRIC).summary().totalAmount());
+        assertEquals(1.0, registry.get(sqlStatementCounter.TOTAL_METRIC).counter().count());
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.model.Product;
+import org.example.repository.productRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that the entity caches keep the newest {@code @Version} of an entity and are written after commit.
+ *
+ * <p>Loads only the caching infrastructure around a mocked {@link productRepository}, so a repository call
+ * can be made to overlap with an update that caches a newer version.</p>
+ */
+@SpringJUnitConfig(VersionedCacheTest.Config.class)
+class VersionedCacheTest {
+
+    @Import(cacheConfig.class)
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(cacheConfig.PRODUCTS);
+        }
+
+        // a plain bean rather than @MockBean so the caching proxy is applied around the repository mock
+        @Bean
+        productRepository productRepository() {
+            return mock(productRepository.class);
+        }
+    }
+
+    @Autowired
+    private productRepository repo;// the caching proxy
+
+    private productRepository repoMock;// the mock behind it, for stubbing and verification
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = cacheManager.getCache(cacheConfig.PRODUCTS);
+        cache.clear();
+        repoMock = AopTestUtils.getUltimateTargetObject(repo);
+        reset(repoMock);
+    }
+
+    /**
+     * Test that a read miss which loaded version 1 does not overwrite the version 2 an update cached while the read ran.
+     */
+    @Test
+    void findCachedById_UpdateCachedDuringLoad_KeepsNewerVersion() {
+        Product stale = product(5, 1);
+        Product updated = product(5, 2);
+        when(repoMock.findCachedById(5)).thenAnswer(invocation -> {
+            cache.put(5, updated);// what updateProduct's @CachePut does when it commits first
+            return Optional.of(stale);
+        });
+
+        assertSame(stale, repo.findCachedById(5).orElseThrow());// the caller still gets what it read
+
+        assertSame(updated, cache.get(5, Product.class));
+        assertSame(updated, repo.findCachedById(5).orElseThrow());
+        verify(repoMock, times(1)).findCachedById(5);
+    }
+
+    /**
+     * Test that a read miss caches what it loaded when nothing newer is there.
+     */
+    @Test
+    void findCachedById_Miss_CachesLoadedProduct() {
+        Product loaded = product(5, 3);
+        when(repoMock.findCachedById(5)).thenReturn(Optional.of(loaded));
+
+        repo.findCachedById(5);
+
+        assertSame(loaded, cache.get(5, Product.class));
+    }
+
+    /**
+     * Test that a put made inside a transaction waits for the commit, and is dropped on rollback.
+     */
+    @Test
+    void findCachedById_InsideTransaction_CachesOnlyAfterCommit() {
+        when(repoMock.findCachedById(5)).thenReturn(Optional.of(product(5, 1)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            repo.findCachedById(5);
+            assertNull(cache.get(5));
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertNull(cache.get(5));
+
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            repo.findCachedById(5);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertNotNull(cache.get(5));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Test that an older or equal version is ignored and a newer one replaces the cached entry, on a Caffeine cache.
+     */
+    @Test
+    void putIfNewer_CaffeineCache_KeepsHighestVersion() {
+        Cache caffeine = new CaffeineCache(cacheConfig.PRODUCTS, Caffeine.newBuilder().build());
+        Product v2 = product(7, 2);
+        versionedCache.putIfNewer(caffeine, 7, v2);
+
+        versionedCache.putIfNewer(caffeine, 7, product(7, 1));
+        versionedCache.putIfNewer(caffeine, 7, product(7, 2));
+        assertSame(v2, caffeine.get(7, Product.class));
+
+        Product v3 = product(7, 3);
+        versionedCache.putIfNewer(caffeine, 7, v3);
+        assertSame(v3, caffeine.get(7, Product.class));
+    }
+
+    /**
+     * Test that values without a version are put as they are.
+     */
+    @Test
+    void putIfNewer_UnversionedValue_Replaces() {
+        versionedCache.putIfNewer(cache, "key", "old");
+        versionedCache.putIfNewer(cache, "key", "new");
+
+        assertEquals("new", cache.get("key", String.class));
+    }
+
+    private static Product product(int id, int version) {
+        Product product = new Product();
+        product.setId(id);
+        product.setVersion(version);
+        return product;
+    }
+}
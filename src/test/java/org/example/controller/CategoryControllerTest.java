@@ -192,17 +192,25 @@
 package org.example.controller;
 
 import org.example.exception.customException;
+import org.example.dto.categoryStatsDTO;
+import org.example.dto.categoryFieldsDTO;
+import org.example.dto.categorySummaryDTO;
+import org.example.dto.productPageDTO;
 import org.example.model.Category;
+import org.example.model.Product;
 import org.example.services.categoryService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest; //Spring Boot test annotation used for testing only the controllers.
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.example.dto.categoryRequestDTO;
 import java.util.List;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -218,6 +226,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * allowing isolation of the controller layer from the service and database.
  */
 @WebMvcTest(categoryController.class)
+@Import({jsonBodyCache.class, NoOpCacheManager.class})// no cache: every request serializes
 class CategoryControllerTest {
 
     @Autowired// Injects a MockMvc instance for simulating HTTP requests to the controller
@@ -230,25 +239,117 @@ class CategoryControllerTest {
 
     /**
      * Test GET /api/categories endpoint when categories exist.
-     * Mocks the service layer to return two categories.
-     * Expects HTTP 200 OK status and JSON array with category names.
+     * Mocks the service layer to return two category summaries.
+     * Expects HTTP 200 OK status and JSON array with category names and product counts, without products.
      *
      * @throws Exception if request execution fails
      */
     @Test
     void getAllCategories_whenCategoriesExist_returnsCategories() throws Exception {
-        Category cat1 = new Category();
-        cat1.setName("Electronics");
-        Category cat2 = new Category();
-        cat2.setName("Books");
+        categorySummaryDTO cat1 = new categorySummaryDTO(1, "Electronics", 3);
+        categorySummaryDTO cat2 = new categorySummaryDTO(2, "Books", 0);
         when(categoryService.getAllCategories()).thenReturn(List.of(cat1, cat2));
 
         mockMvc.perform(get("/api/categories"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].name").value("Electronics"))
+                .andExpect(jsonPath("$[0].productCount").value(3))
+                .andExpect(jsonPath("$[0].products").doesNotExist())
                 .andExpect(jsonPath("$[1].name").value("Books"));
     }
 
+    /**
+     * Test GET /api/categories with {@code fields}.
+     * Expects only the requested fields, read without product counts, and 400 for an unknown field.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getAllCategories_withFields_returnsOnlyThoseFields() throws Exception {
+        when(categoryService.getCategoryFields(Set.of("id", "name")))
+                .thenReturn(List.of(new categoryFieldsDTO(1, "Electronics"), new categoryFieldsDTO(2, "Books")));
+
+        mockMvc.perform(get("/api/categories").param("fields", "name,id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Electronics"))
+                .andExpect(jsonPath("$[0].productCount").doesNotExist());
+        verify(categoryService, never()).getAllCategories();
+
+        mockMvc.perform(get("/api/categories").param("fields", "id,products"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field 'products'; choose from id, name, productCount"));
+    }
+
+    /**
+     * Test GET /api/categories with an If-None-Match that matches the aggregate version.
+     * Expects HTTP 304 Not Modified with the ETag and no body; the list is never loaded.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getAllCategories_whenNotModified_returns304WithoutLoadingList() throws Exception {
+        when(categoryService.getCategoriesVersion()).thenReturn("c2.3.0-p5.15.2");
+
+        mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"c2.3.0-p5.15.2\""));
+
+        mockMvc.perform(get("/api/categories").header("If-None-Match", "\"c2.3.0-p5.15.2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"c2.3.0-p5.15.2\""))
+                .andExpect(content().string(""));
+
+        verify(categoryService, times(1)).getAllCategories();
+    }
+
+    /**
+     * Test GET /api/categories/stats and GET /api/categories/{id}/stats.
+     * Expects the statistics from the service, with null prices for a category without products,
+     * and the literal {@code stats} path not taken for a category ID.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getCategoryStats_returnsCountAndPrices() throws Exception {
+        when(categoryService.getAllCategoryStats()).thenReturn(List.of(
+                new categoryStatsDTO(1, "Books", 2, 100, 300, 200.0),
+                new categoryStatsDTO(2, "Games", 0, null, null, null)));
+        when(categoryService.getCategoryStats(1)).thenReturn(new categoryStatsDTO(1, "Books", 2, 100, 300, 200.0));
+
+        mockMvc.perform(get("/api/categories/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productCount").value(2))
+                .andExpect(jsonPath("$[0].averagePrice").value(200.0))
+                .andExpect(jsonPath("$[1].minPrice").isEmpty());
+
+        mockMvc.perform(get("/api/categories/1/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Books"))
+                .andExpect(jsonPath("$.minPrice").value(100))
+                .andExpect(jsonPath("$.maxPrice").value(300));
+    }
+
+    /**
+     * Test GET /api/categories/{id}/products when more pages follow.
+     * Mocks the service to return one page of products with a cursor.
+     * Expects HTTP 200 OK, the products, and the cursor in the X-Next-Cursor header.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getCategoryProducts_whenMorePagesFollow_returnsPageAndCursor() throws Exception {
+        Product product = new Product();
+        product.setId(4);
+        product.setName("Laptop");
+        when(categoryService.getCategoryProducts(1, null, 1)).thenReturn(new productPageDTO<>(List.of(product), "NA"));
+
+        mockMvc.perform(get("/api/categories/1/products").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "NA"))
+                .andExpect(jsonPath("$[0].name").value("Laptop"));
+    }
+
     // GET CATEGORY BY ID TESTS
     /**
      * Test GET /api/categories/{id} when the category exists.
@@ -346,7 +447,7 @@ class CategoryControllerTest {
     void patchCategory_withValidData_returnsOk() throws Exception {
         Category cat = new Category();
         cat.setName("Updated Electronics");
-        when(categoryService.updateCategory(eq(1), any(categoryRequestDTO.class))).thenReturn(cat);
+        when(categoryService.updateCategory(eq(1), isNull(), any(categoryRequestDTO.class))).thenReturn(cat);
 
         mockMvc.perform(patch("/api/categories/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -354,6 +455,25 @@ class CategoryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Updated Electronics"));
     }
+    /**
+     * Test PATCH /api/categories/{id} with an If-Match that is no longer current.
+     * Expects HTTP 412 Precondition Failed from the service's version check.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void patchCategory_withStaleIfMatch_returnsPreconditionFailed() throws Exception {
+        doThrow(new customException.PreconditionFailedException("Category with ID 1 has changed since version 2"))
+                .when(categoryService).updateCategory(eq(1), eq(2), any(categoryRequestDTO.class));
+
+        mockMvc.perform(patch("/api/categories/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Books\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Category with ID 1 has changed since version 2"))
+                .andExpect(jsonPath("$.status").value(412));
+    }
     /**
      * Test PATCH /api/categories/{id} with missing "name" field.
      * Expects HTTP 400 Bad Request status due to validation failure.
@@ -418,7 +538,7 @@ class CategoryControllerTest {
     @Test
     void patchCategory_withDuplicateName_returnsConflict() throws Exception {
         doThrow(new customException.DuplicateResourceException("Category with name 'Books' already exists"))
-                .when(categoryService).updateCategory(eq(1), any(categoryRequestDTO.class));
+                .when(categoryService).updateCategory(eq(1), isNull(), any(categoryRequestDTO.class));
 
         mockMvc.perform(patch("/api/categories/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -438,7 +558,7 @@ class CategoryControllerTest {
     void patchCategory_withEmptyName_returnsBadRequest() throws Exception {
         doThrow(new customException.ValidationException("Category name cannot be empty"))
 
-                .when(categoryService).updateCategory(eq(1), any(categoryRequestDTO.class));
+                .when(categoryService).updateCategory(eq(1), isNull(), any(categoryRequestDTO.class));
 
         mockMvc.perform(patch("/api/categories/1")
                         .contentType(MediaType.APPLICATION_JSON)
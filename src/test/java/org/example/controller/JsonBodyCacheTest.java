@@ -0,0 +1,249 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.config.cacheConfig;
+import org.example.exception.customException;
+import org.example.model.Category;
+import org.example.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link jsonBodyCache} over an in-memory cache manager, without the web layer.
+ */
+class JsonBodyCacheTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private jsonBodyCache bodyCache;
+
+    @BeforeEach
+    void setUp() {
+        bodyCache = new jsonBodyCache();
+        ReflectionTestUtils.setField(bodyCache, "objectMapper", mapper);
+        ReflectionTestUtils.setField(bodyCache, "cacheManager",
+                new ConcurrentMapCacheManager(cacheConfig.PRODUCT_JSON, cacheConfig.CATEGORY_JSON, cacheConfig.CATEGORY_LIST_JSON));
+        ReflectionTestUtils.setField(bodyCache, "compress", true);
+        ReflectionTestUtils.setField(bodyCache, "minCompressSize", DataSize.ofBytes(256));
+        ReflectionTestUtils.setField(bodyCache, "cborConverter", new MappingJackson2CborHttpMessageConverter());
+        ReflectionTestUtils.setField(bodyCache, "smileConverter", new MappingJackson2SmileHttpMessageConverter());
+    }
+
+    private static WebRequest accepting(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        return new ServletWebRequest(request);
+    }
+
+    private static WebRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    private static Product product(int version, String name) {
+        Product p = new Product();
+        p.setId(5);
+        p.setName(name);
+        p.setPrice(1000);
+        p.setVersion(version);
+        return p;
+    }
+
+    @Test
+    void ok_SameVersion_ServesCachedBytes() throws Exception {
+        Product p = product(3, "Laptop");
+
+        ResponseEntity<byte[]> first = bodyCache.ok(cacheConfig.PRODUCT_JSON, 5, 3, () -> p, request(null));
+        p.setName("Renamed without a version change");// must not be seen: the bytes of version 3 are reused
+        ResponseEntity<byte[]> second = bodyCache.ok(cacheConfig.PRODUCT_JSON, 5, 3, () -> p, request(null));
+
+        assertSame(first.getBody(), second.getBody());
+        assertEquals("Laptop", mapper.readTree(second.getBody()).get("name").asText());
+        assertEquals("\"3\"", second.getHeaders().getETag());
+        assertEquals("application/json", second.getHeaders().getContentType().toString());
+    }
+
+    @Test
+    void ok_NewVersion_Reserializes() throws Exception {
+        bodyCache.ok(cacheConfig.PRODUCT_JSON, 5, 3, () -> product(3, "Laptop"), request(null));
+
+        ResponseEntity<byte[]> response = bodyCache.ok(cacheConfig.PRODUCT_JSON, 5, 4, () -> product(4, "Notebook"), request(null));
+
+        assertEquals("Notebook", mapper.readTree(response.getBody()).get("name").asText());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void ok_GzipAcceptedAndSmaller_ServesGzipWithOwnETag() throws Exception {
+        Category category = new Category("Books ".repeat(100));
+        category.setId(1);
+        category.setVersion(2);
+
+        ResponseEntity<byte[]> response = bodyCache.ok(cacheConfig.CATEGORY_JSON, 1, 2, () -> category, request("gzip, deflate, br"));
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"2-gzip\"", response.getHeaders().getETag());
+        assertTrue(response.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+        byte[] json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            json = in.readAllBytes();
+        }
+        assertArrayEquals(mapper.writeValueAsBytes(category), json);
+    }
+
+    @Test
+    void ok_GzipNotSmaller_ServesJson() {
+        ResponseEntity<byte[]> response = bodyCache.ok(cacheConfig.PRODUCT_JSON, 5, 3, () -> product(3, "Laptop"), request("gzip"));
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"3\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void ok_BelowMinimumSize_ServesJsonEvenIfGzipIsSmaller() {
+        Category category = new Category("Books ".repeat(30));// compresses well, but under 256 bytes
+        category.setId(1);
+
+        ResponseEntity<byte[]> response = bodyCache.ok(cacheConfig.CATEGORY_JSON, 1, 0, () -> category, request("gzip"));
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void ok_CompressionDisabled_ServesJson() {
+        ReflectionTestUtils.setField(bodyCache, "compress", false);
+        Category category = new Category("Books ".repeat(100));
+        category.setId(1);
+
+        ResponseEntity<byte[]> response = bodyCache.ok(cacheConfig.CATEGORY_JSON, 1, 0, () -> category, request("gzip"));
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void ok_ListOfSameVersion_LoadedAndCompressedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        List<String> names = List.of("Books ".repeat(50), "Games ".repeat(50));
+
+        ResponseEntity<byte[]> first = bodyCache.ok(cacheConfig.CATEGORY_LIST_JSON, "all", "c2.3.0-p5.15.2",
+                () -> { loads.incrementAndGet(); return names; }, request("gzip"));
+        ResponseEntity<byte[]> second = bodyCache.ok(cacheConfig.CATEGORY_LIST_JSON, "all", "c2.3.0-p5.15.2",
+                () -> { loads.incrementAndGet(); return names; }, request("gzip"));
+        bodyCache.ok(cacheConfig.CATEGORY_LIST_JSON, "all", "c2.3.0-p6.21.2",
+                () -> { loads.incrementAndGet(); return names; }, request("gzip"));
+
+        assertSame(first.getBody(), second.getBody());
+        assertEquals("\"c2.3.0-p5.15.2-gzip\"", second.getHeaders().getETag());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void ok_IfNoneMatchNamesEitherEncoding_NotModifiedWithoutLoading() {
+        AtomicInteger loads = new AtomicInteger();
+        for (String tag : new String[]{"\"c2.3.0-p5.15.2\"", "W/\"c2.3.0-p5.15.2-gzip\""}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"old\", " + tag);
+
+            ResponseEntity<byte[]> response = bodyCache.ok(cacheConfig.CATEGORY_LIST_JSON, "all", "c2.3.0-p5.15.2",
+                    () -> { loads.incrementAndGet(); return List.of(); }, new ServletWebRequest(request));
+
+            assertEquals(304, response.getStatusCode().value());
+            assertEquals(tag.replace("W/", ""), response.getHeaders().getETag());
+            assertNull(response.getBody());
+        }
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void ok_AcceptingCbor_TranscodesOncePerVersionToSameBytesAsCborMapper() throws Exception {
+        Product p = product(3, "Laptop");
+
+        ResponseEntity<byte[]> first = bodyCache.ok(cacheConfig.PRODUCT_JSON, 5, 3, () -> p, accepting("application/cbor"));
+        ResponseEntity<byte[]> second = bodyCache.ok(cacheConfig.PRODUCT_JSON, 5, 3, () -> p, accepting("application/cbor"));
+
+        assertSame(first.getBody(), second.getBody());
+        assertArrayEquals(new CBORMapper().writeValueAsBytes(p), second.getBody());
+        assertEquals("application/cbor", second.getHeaders().getContentType().toString());
+        assertEquals("\"3-cbor\"", second.getHeaders().getETag());
+        assertTrue(second.getHeaders().getVary().contains(HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void ok_AcceptingSmileAndGzip_ServesSmileUncompressed() throws Exception {
+        Category category = new Category("Books ".repeat(100));
+        category.setId(1);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        ResponseEntity<byte[]> response = bodyCache.ok(cacheConfig.CATEGORY_JSON, 1, 0, () -> category, new ServletWebRequest(request));
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"0-smile\"", response.getHeaders().getETag());
+        assertEquals(category.getName(), new SmileMapper().readTree(response.getBody()).get("name").asText());
+    }
+
+    @Test
+    void binaryFormat_FollowsAcceptPreference() {
+        assertNull(bodyCache.binaryFormat(null));
+        assertNull(bodyCache.binaryFormat("*/*"));
+        assertNull(bodyCache.binaryFormat("application/json, application/cbor"));
+        assertNull(bodyCache.binaryFormat("application/cbor;q=0, application/json;q=0.1"));
+        assertNull(bodyCache.binaryFormat("application/cbor;q=x"));
+        assertEquals("cbor", bodyCache.binaryFormat("application/cbor"));
+        assertEquals("cbor", bodyCache.binaryFormat("*/*;q=0.8, application/cbor"));
+        assertEquals("smile", bodyCache.binaryFormat("application/json;q=0.9, application/x-jackson-smile"));
+
+        ReflectionTestUtils.setField(bodyCache, "cborConverter", null);
+        assertNull(bodyCache.binaryFormat("application/cbor"));
+    }
+
+    @Test
+    void acceptsGzip_HonoursQValues() {
+        assertTrue(jsonBodyCache.acceptsGzip("gzip"));
+        assertTrue(jsonBodyCache.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertFalse(jsonBodyCache.acceptsGzip("gzip;q=0"));
+        assertFalse(jsonBodyCache.acceptsGzip("deflate, br"));
+        assertFalse(jsonBodyCache.acceptsGzip(null));
+    }
+
+    @Test
+    void versionOf_AcceptsETagsOfEveryForm() {
+        assertEquals(2, etags.versionOf("\"2-gzip\""));
+        assertEquals(2, etags.versionOf("\"2-cbor\""));
+        assertEquals(2, etags.versionOf("\"2-smile\""));
+        assertEquals(2, etags.versionOf("\"2\""));
+        assertEquals(etags.ANY_VERSION, etags.versionOf(" * "));
+        assertThrows(customException.PreconditionFailedException.class, () -> etags.versionOf("\"-1\""));
+        assertNull(etags.versionOf(null));
+    }
+
+    @Test
+    void versionOf_ListMatchesAnyOfItsTags() {
+        assertEquals(3, etags.versionOf("\"3\", \"3-gzip\""));
+        assertEquals(3, etags.versionOf("W/\"2\", \"3\", \"x\""));// weak and foreign tags match nothing
+        assertThrows(customException.PreconditionFailedException.class, () -> etags.versionOf("\"3\", \"4\""));
+        assertThrows(customException.PreconditionFailedException.class, () -> etags.versionOf("W/\"3\", \"x\""));
+    }
+}
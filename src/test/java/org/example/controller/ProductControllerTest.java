@@ -244,20 +244,39 @@
 //}
 package org.example.controller;
 
+import org.example.dto.bulkImportResultDTO;
+import org.example.dto.productBatchDTO;
+import org.example.dto.productNameDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.config.binaryFormatsConfig;
+import org.example.dto.productFieldsDTO;
+import org.example.dto.productPageDTO;
 import org.example.dto.productPatchDTO;
 import org.example.dto.productRequestDTO;
+import org.example.dto.productSearchResultDTO;
+import org.example.exception.customException;
 import org.example.model.Product;
 import org.example.services.productService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.example.services.productService.MAX_IMPORT_ROWS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -272,6 +291,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * allowing isolation of the controller layer from the service and database.
  */
 @WebMvcTest(productController.class)
+@Import({jsonBodyCache.class, NoOpCacheManager.class, binaryFormatsConfig.class})// no cache: every request serializes
 class ProductControllerTest {
 
     @Autowired
@@ -301,16 +321,235 @@ class ProductControllerTest {
         product2.setName("Phone");
         product2.setPrice(500);
 
-        when(productService.getAllProducts()).thenReturn(List.of(product1, product2));
+        when(productService.getProductsPage(null, null, null, "id", null, 50)).thenReturn(new productPageDTO<>(List.of(product1, product2), null));
 
         mockMvc.perform(get("/api/products"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$[0].name").value("Laptop"))
                 .andExpect(jsonPath("$[0].price").value(1000))
                 .andExpect(jsonPath("$[1].name").value("Phone"))
                 .andExpect(jsonPath("$[1].price").value(500));
     }
 
+    /**
+     * Test GET /api/products with {@code fields=id,price}.
+     * Expects the projected page from the service, without names, and the cursor header.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProducts_WithFields_ReturnsOnlyThoseFields() throws Exception {
+        when(productService.getProductFieldsPage(Set.of("id", "price"), null, null, null, "price", null, 50))
+                .thenReturn(new productPageDTO<>(List.of(new productFieldsDTO(7, null, 1000)), "cursor"));
+
+        mockMvc.perform(get("/api/products?fields=price,id&sort=price"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "cursor"))
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].price").value(1000))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+        verify(productService, never()).getProductsPage(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    /**
+     * Test GET /api/products with {@code Accept: application/cbor}.
+     * Expects the same page, fields and cursor header as JSON, encoded as CBOR.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProducts_AcceptingCbor_ReturnsCbor() throws Exception {
+        Product product = new Product();
+        product.setId(7);
+        product.setName("Laptop");
+        product.setPrice(1000);
+        when(productService.getProductsPage(null, null, null, "id", null, 50)).thenReturn(new productPageDTO<>(List.of(product), "cursor"));
+
+        MvcResult result = mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("X-Next-Cursor", "cursor"))
+                .andReturn();
+
+        JsonNode page = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(7, page.get(0).get("id").asInt());
+        assertEquals("Laptop", page.get(0).get("name").asText());
+        assertEquals(1000, page.get(0).get("price").asInt());
+    }
+
+    /**
+     * Test a 400 Bad Request with {@code Accept: application/cbor}.
+     * Expects the error as JSON, like every other error.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void badRequest_AcceptingCbor_ReturnsJsonError() throws Exception {
+        when(productService.getProductsPage(null, null, null, "id", null, 50))
+                .thenThrow(new customException.ValidationException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json("{\"message\":\"Invalid cursor\",\"status\":400}", JsonCompareMode.STRICT));
+    }
+
+    /**
+     * Test a 404 Not Found with {@code Accept: application/cbor}.
+     * Expects the error as JSON, like every other error.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void notFound_AcceptingCbor_ReturnsJsonError() throws Exception {
+        when(productService.getProductById(999))
+                .thenThrow(new customException.ResourceNotFoundException("Product with ID 999 not found"));
+
+        mockMvc.perform(get("/api/products/999").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json("{\"message\":\"Product with ID 999 not found\",\"status\":404}", JsonCompareMode.STRICT));
+    }
+
+    /**
+     * Test GET /api/products with a limit and cursor when more pages follow.
+     * Expects HTTP 200 OK and the next cursor in the X-Next-Cursor header.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProducts_WhenMorePagesFollow_ReturnsNextCursorHeader() throws Exception {
+        Product product = new Product();
+        product.setId(7);
+        product.setName("Laptop");
+
+        when(productService.getProductsPage(null, null, null, "id", "NQ", 1)).thenReturn(new productPageDTO<>(List.of(product), "Nw"));
+
+        mockMvc.perform(get("/api/products").param("limit", "1").param("after", "NQ"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "Nw"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(7));
+    }
+
+    /**
+     * Test GET /api/products with a category, price range and price order.
+     * Expects the filters and sort to reach the service unchanged.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProducts_WithFiltersAndPriceSort_PassesThemToService() throws Exception {
+        Product product = new Product();
+        product.setId(3);
+        product.setPrice(120);
+
+        when(productService.getProductsPage(2, 100, 200, "price", null, 10))
+                .thenReturn(new productPageDTO<>(List.of(product), null));
+
+        mockMvc.perform(get("/api/products").param("categoryId", "2").param("minPrice", "100")
+                        .param("maxPrice", "200").param("sort", "price").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].price").value(120));
+    }
+
+    /**
+     * Test POST /api/products/batch-get.
+     * Expects the products found and the missing IDs from the service.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProductsByIds_ReturnsItemsAndMissing() throws Exception {
+        Product product = new Product();
+        product.setId(3);
+        product.setName("Laptop");
+        when(productService.getProductsByIds(List.of(3, 404)))
+                .thenReturn(new productBatchDTO(List.of(product), List.of(404)));
+
+        mockMvc.perform(post("/api/products/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[3,404]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(3))
+                .andExpect(jsonPath("$.items[0].name").value("Laptop"))
+                .andExpect(jsonPath("$.missing[0]").value(404));
+    }
+
+    /**
+     * Test POST /api/products/batch-get without IDs.
+     * Expects HTTP 400 Bad Request before the service is called.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProductsByIds_EmptyIds_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/products/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At least one product ID is required"));
+
+        verifyNoInteractions(productService);
+    }
+
+    /**
+     * Test GET /api/products/search.
+     * Expects the ranked page and total from the service, with the default offset and limit applied.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void searchProducts_ReturnsMatchesAndTotal() throws Exception {
+        when(productService.searchProducts("lap", 0, 20))
+                .thenReturn(new productSearchResultDTO(3, List.of(new productNameDTO(7, "Laptop"))));
+
+        mockMvc.perform(get("/api/products/search").param("q", "lap"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.items[0].id").value(7))
+                .andExpect(jsonPath("$.items[0].name").value("Laptop"));
+    }
+
+    /**
+     * Test GET /api/products/export.
+     * Mocks the service to stream two products.
+     * Expects an async NDJSON response with one JSON document per line.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void exportProducts_StreamsNdjson() throws Exception {
+        Product product1 = new Product();
+        product1.setId(1);
+        product1.setName("Laptop");
+        product1.setPrice(1000);
+
+        Product product2 = new Product();
+        product2.setId(2);
+        product2.setName("Phone");
+        product2.setPrice(500);
+
+        when(productService.exportProducts(any())).thenAnswer(invocation -> {
+            Consumer<Product> sink = invocation.getArgument(0);
+            sink.accept(product1);
+            sink.accept(product2);
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1,\"name\":\"Laptop\",\"price\":1000}\n"
+                        + "{\"id\":2,\"name\":\"Phone\",\"price\":500}\n"));
+    }
+
     // Test for "/get/:id" when product exists
     /**
      * Test GET /api/products/{id} when the product exists.
@@ -333,6 +572,62 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.price").value(1000));
     }
 
+    /**
+     * Test GET /api/products/{id} with conditional requests.
+     * Expects the version as a strong ETag, 304 with no body when If-None-Match matches,
+     * and the full product when it does not.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProduct_WithIfNoneMatch_ReturnsNotModifiedOnlyForCurrentVersion() throws Exception {
+        Product product = new Product();
+        product.setName("Laptop");
+        product.setVersion(3);
+        when(productService.getProductById(5)).thenReturn(product);
+
+        mockMvc.perform(get("/api/products/5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(get("/api/products/5").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/products/5").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Laptop"));
+    }
+
+    /**
+     * Test GET /api/products/{id} preferring Smile over JSON.
+     * Expects the product as Smile with its own ETag, and 304 for that ETag.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void getProduct_PreferringSmile_ReturnsSmileWithOwnETag() throws Exception {
+        Product product = new Product();
+        product.setName("Laptop");
+        product.setPrice(1000);
+        product.setVersion(3);
+        when(productService.getProductById(5)).thenReturn(product);
+        String accept = "application/json;q=0.5, application/x-jackson-smile";
+
+        MvcResult result = mockMvc.perform(get("/api/products/5").header("Accept", accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string("ETag", "\"3-smile\""))
+                .andReturn();
+        assertEquals("Laptop", new SmileMapper().readTree(result.getResponse().getContentAsByteArray()).get("name").asText());
+
+        mockMvc.perform(get("/api/products/5").header("Accept", accept).header("If-None-Match", "\"3-smile\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/products/5").header("Accept", accept).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk());
+    }
+
     // Test for "/get/:id" when product does NOT exist
 //    @Test
 //    void getProduct_WhenNotExists_ReturnsNotFound() throws Exception {
@@ -390,6 +685,108 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.name").value("Laptop"))
                 .andExpect(jsonPath("$.price").value(1000));
     }
+    /**
+     * Test POST /api/products/bulk with a JSON array.
+     * Expects HTTP 200 OK with the created count and the per-row errors.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void importProducts_WithJsonArray_ReturnsReport() throws Exception {
+        when(productService.importProducts(anyList())).thenReturn(new bulkImportResultDTO(1,
+                List.of(new bulkImportResultDTO.rowError(2, "Category with ID 9 does not exist"))));
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"Laptop\",\"price\":1000,\"categoryId\":1},"
+                                + "{\"name\":\"Phone\",\"price\":500,\"categoryId\":9}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Category with ID 9 does not exist"));
+
+        verify(productService).importProducts(argThat(rows -> rows.size() == 2));
+    }
+    /**
+     * Test POST /api/products/bulk with a CBOR array.
+     * Expects the rows to be read as from JSON, and the report as JSON.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void importProducts_WithCborArray_ReturnsReport() throws Exception {
+        when(productService.importProducts(anyList())).thenReturn(new bulkImportResultDTO(2, List.of()));
+        byte[] body = new CBORMapper().writeValueAsBytes(List.of(
+                Map.of("name", "Laptop", "price", 1000, "categoryId", 1),
+                Map.of("name", "Phone", "price", 500, "categoryId", 1)));
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+
+        verify(productService).importProducts(argThat(rows ->
+                rows.size() == 2 && rows.get(1).getName().equals("Phone")));
+    }
+    /**
+     * Test POST /api/products/bulk with NDJSON, one product per line.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void importProducts_WithNdjson_ParsesEveryLine() throws Exception {
+        when(productService.importProducts(anyList())).thenReturn(new bulkImportResultDTO(2, List.of()));
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Laptop\",\"price\":1000,\"categoryId\":1}\n"
+                                + "{\"name\":\"Phone\",\"price\":500,\"categoryId\":1}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        verify(productService).importProducts(argThat(rows ->
+                rows.size() == 2 && rows.get(1).getName().equals("Phone")));
+    }
+    /**
+     * Test POST /api/products/bulk with more NDJSON lines than an import may hold.
+     * Expects reading to stop one row past the limit, leaving the rejection to the service.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void importProducts_WithTooManyNdjsonLines_StopsReadingPastTheLimit() throws Exception {
+        when(productService.importProducts(anyList())).thenThrow(new customException.ValidationException(
+                "An import must contain between 1 and " + MAX_IMPORT_ROWS + " products"));
+        String line = "{\"name\":\"Laptop\",\"price\":1000,\"categoryId\":1}\n";
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(line.repeat(MAX_IMPORT_ROWS + 10) + "{\"name\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("An import must contain between 1 and " + MAX_IMPORT_ROWS + " products"));
+
+        verify(productService).importProducts(argThat(rows -> rows.size() == MAX_IMPORT_ROWS + 1));
+    }
+    /**
+     * Test POST /api/products/bulk with a malformed NDJSON line.
+     * Expects HTTP 400 Bad Request naming the line.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void importProducts_WithMalformedNdjson_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Laptop\",\"price\":1000,\"categoryId\":1}\n{\"name\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.startsWith("Malformed NDJSON at line 2")));
+
+        verify(productService, never()).importProducts(anyList());
+    }
     /**
      * Test PATCH /api/products/{id} with valid update data.
      * Mocks the service to update and return the updated product.
@@ -434,7 +831,7 @@ class ProductControllerTest {
         updated.setPrice(1500);
 
         // use patchProduct, not updateProduct if your service method is renamed for partial
-        when(productService.updateProduct(eq(5), any(productPatchDTO.class))).thenReturn(updated);
+        when(productService.updateProduct(eq(5), isNull(), any(productPatchDTO.class))).thenReturn(updated);
 
         mockMvc.perform(patch("/api/products/5")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -445,6 +842,84 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.price").value(1500));
     }
 
+    @Test
+    void updateProduct_WithIfMatch_UpdatesThatVersionAndReturnsNewETag() throws Exception {
+        Product updated = new Product();
+        updated.setName("Laptop");
+        updated.setVersion(4);
+        when(productService.updateProduct(eq(5), eq(3), any(productPatchDTO.class))).thenReturn(updated);
+
+        mockMvc.perform(patch("/api/products/5")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1500}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateProduct_WithStaleIfMatch_ReturnsPreconditionFailed() throws Exception {
+        when(productService.updateProduct(eq(5), eq(3), any(productPatchDTO.class)))
+                .thenThrow(new customException.PreconditionFailedException("Product with ID 5 has changed since version 3"));
+
+        mockMvc.perform(patch("/api/products/5")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1500}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Product with ID 5 has changed since version 3"))
+                .andExpect(jsonPath("$.status").value(412));
+    }
+
+    @Test
+    void updateProduct_WithIfMatchAnyOnMissingProduct_ReturnsPreconditionFailed() throws Exception {
+        when(productService.updateProduct(eq(404), eq(etags.ANY_VERSION), any(productPatchDTO.class)))
+                .thenThrow(new customException.PreconditionFailedException("Product with ID 404 does not exist"));
+
+        mockMvc.perform(patch("/api/products/404")
+                        .header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1500}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Product with ID 404 does not exist"));
+    }
+
+    @Test
+    void updateProduct_WithIfMatchList_UpdatesTheVersionItNames() throws Exception {
+        Product updated = new Product();
+        updated.setVersion(4);
+        when(productService.updateProduct(eq(5), eq(3), any(productPatchDTO.class))).thenReturn(updated);
+
+        mockMvc.perform(patch("/api/products/5")
+                        .header("If-Match", "\"3-gzip\", \"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1500}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateProduct_WithNegativeIfMatch_ReturnsPreconditionFailed() throws Exception {
+        mockMvc.perform(patch("/api/products/5")
+                        .header("If-Match", "\"-1\"")// not read as If-Match: *
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1500}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void updateProduct_WithWeakIfMatch_ReturnsPreconditionFailed() throws Exception {
+        mockMvc.perform(patch("/api/products/5")
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1500}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verifyNoInteractions(productService);
+    }
+
     // Test DELETE when exists
     /**
      * Test DELETE /api/products/{id} when the product exists.
@@ -0,0 +1,64 @@
+package org.example.controller;
+
+import org.example.dto.suggestionDTO;
+import org.example.exception.customException;
+import org.example.services.suggestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit test for {@link suggestController} using Spring's {@link WebMvcTest}, with {@link suggestService} mocked.
+ */
+@WebMvcTest(suggestController.class)
+class SuggestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private suggestService suggestService;
+
+    /**
+     * Test GET /api/suggest.
+     * Expects the service's suggestions, with the default limit applied.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void suggest_ReturnsNamesWithTypeAndId() throws Exception {
+        when(suggestService.suggest("gar", 10)).thenReturn(List.of(
+                new suggestionDTO("Garden", suggestionDTO.CATEGORY, 1),
+                new suggestionDTO("Garden Hose", suggestionDTO.PRODUCT, 7)));
+
+        mockMvc.perform(get("/api/suggest").param("prefix", "gar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Garden"))
+                .andExpect(jsonPath("$[0].type").value("category"))
+                .andExpect(jsonPath("$[1].type").value("product"))
+                .andExpect(jsonPath("$[1].id").value(7));
+    }
+
+    /**
+     * Test GET /api/suggest without a prefix.
+     * Mocks the service to reject it. Expects HTTP 400 Bad Request.
+     *
+     * @throws Exception if request execution fails
+     */
+    @Test
+    void suggest_WithoutPrefix_ReturnsBadRequest() throws Exception {
+        when(suggestService.suggest(null, 10))
+                .thenThrow(new customException.ValidationException("Prefix cannot be empty"));
+
+        mockMvc.perform(get("/api/suggest"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the pre-serialized 404/409 bodies of {@link globalexceptionHandler} and the stack-trace
+ * setting of {@link customException}.
+ */
+class GlobalExceptionHandlerTest {
+
+    private final globalexceptionHandler handler = new globalexceptionHandler();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @AfterEach
+    void tearDown() {
+        customException.setCaptureStackTraces(false);
+    }
+
+    @Test
+    void handleNotFound_WritesSameJsonAsErrorResponse() throws Exception {
+        ResponseEntity<byte[]> response = handler.handleNotFound(
+                new customException.ResourceNotFoundException("Product with ID 42 not found"));
+
+        assertEquals(404, response.getStatusCode().value());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertArrayEquals(mapper.writeValueAsBytes(new errorResponse("Product with ID 42 not found", 404)),
+                response.getBody());
+    }
+
+    @Test
+    void handleDuplicate_EscapesMessage() throws Exception {
+        String message = "Product with name 'A \"quoted\" \\ nameé\t' already exists";
+
+        ResponseEntity<byte[]> response = handler.handleDuplicate(
+                new customException.DuplicateResourceException(message));
+
+        assertEquals(409, response.getStatusCode().value());
+        assertArrayEquals(mapper.writeValueAsBytes(new errorResponse(message, 409)), response.getBody());
+        assertEquals(message, mapper.readTree(response.getBody()).get("message").asText());
+    }
+
+    @Test
+    void handleNotFound_NullMessage_WritesJsonNull() throws Exception {
+        ResponseEntity<byte[]> response = handler.handleNotFound(new customException.ResourceNotFoundException(null));
+
+        assertArrayEquals(mapper.writeValueAsBytes(new errorResponse(null, 404)), response.getBody());
+        assertTrue(mapper.readTree(response.getBody()).get("message").isNull());
+    }
+
+    @Test
+    void customException_ByDefault_HasNoStackTrace() {
+        customException.ResourceNotFoundException ex = new customException.ResourceNotFoundException("missing");
+
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals("missing", ex.getMessage());
+    }
+
+    @Test
+    void customException_WhenCaptureEnabled_HasStackTrace() {
+        customException.setCaptureStackTraces(true);
+
+        customException.ValidationException ex = new customException.ValidationException("invalid");
+
+        assertTrue(ex.getStackTrace().length > 0);
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import org.example.model.Category;
+import org.example.model.Product;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the SQL of {@link productRepository#findPage} and H2's {@code EXPLAIN} of it against an
+ * H2 schema generated from the entities, and the columns {@link productRepository#findPageFields} reads.
+ *
+ * <p>
+ * The statement is captured as Hibernate sends it, so the plans are those of the real queries. A keyset
+ * page stays cheap at any depth only if the database seeks to its start and reads rows already in the
+ * requested order; H2 reports both in the plan, as the index condition and as {@code index sorted}.
+ * </p>
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.example.repository.ProductQueryPlanTest$lastStatement")
+class ProductQueryPlanTest {
+
+    /** Remembers the last statement Hibernate prepared. */
+    public static class lastStatement implements StatementInspector {
+        static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            lastStatement.sql = sql;
+            return sql;
+        }
+    }
+
+    @Autowired
+    private productRepository repo;
+
+    @Autowired
+    private categoryRepository categoryRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Category books;
+
+    @BeforeEach
+    void setUp() {
+        books = new Category();
+        books.setName("Books");
+        books = categoryRepo.saveAndFlush(books);
+        Category games = new Category();
+        games.setName("Games");
+        games = categoryRepo.saveAndFlush(games);
+        for (int i = 0; i < 20; i++) {
+            repo.save(new Product("Book " + i, 100 + (i * 37) % 200, books));
+            repo.save(new Product("Game " + i, 100 + (i * 53) % 200, games));
+        }
+        repo.flush();
+    }
+
+    /** Runs the page query and returns H2's plan for the statement it sent, upper-cased. */
+    private String plan(Integer categoryId, Integer minPrice, Integer maxPrice, boolean byPrice, Integer afterPrice, int afterId) {
+        repo.findPage(categoryId, minPrice, maxPrice, byPrice, afterPrice, afterId, 10);
+        String sql = lastStatement.sql;
+        int parameters = (int) sql.chars().filter(c -> c == '?').count();
+        Object[] values = new Object[parameters];
+        Arrays.fill(values, 150);
+        return jdbc.queryForObject("explain " + sql, String.class, values).toUpperCase(Locale.ROOT);
+    }
+
+    @Test
+    void categoryByPrice_SeeksTheCategoryPriceIndexInOrder() {
+        String plan = plan(books.getId(), null, null, true, 150, 7);
+
+        assertTrue(plan.contains(Product.CATEGORY_PRICE_INDEX.toUpperCase(Locale.ROOT)), plan);
+        assertTrue(plan.contains("INDEX SORTED"), plan);// no sort step: rows come out in (price, id) order
+        assertTrue(plan.matches("(?s).*CATEGORY_ID = \\?\\d+\\s+AND PRICE >= \\?\\d+.*"), plan);// seeks to the cursor
+    }
+
+    @Test
+    void categoryPriceRange_UsesTheCategoryPriceIndexForTheRange() {
+        String plan = plan(books.getId(), 120, 180, true, null, 0);
+
+        assertTrue(plan.contains(Product.CATEGORY_PRICE_INDEX.toUpperCase(Locale.ROOT)), plan);
+        assertTrue(plan.contains("INDEX SORTED"), plan);
+        assertTrue(plan.contains("PRICE <= ?"), plan);
+    }
+
+    @Test
+    void allByPrice_SeeksThePriceIndexInOrder() {
+        String plan = plan(null, 120, null, true, 150, 7);
+
+        assertTrue(plan.contains(Product.PRICE_INDEX.toUpperCase(Locale.ROOT)), plan);
+        assertTrue(plan.contains("INDEX SORTED"), plan);
+    }
+
+    @Test
+    void byId_SeeksThePrimaryKey() {
+        String plan = plan(null, null, null, false, null, 7);
+
+        assertTrue(plan.contains("PRIMARY_KEY"), plan);
+        assertTrue(plan.contains("ID > ?"), plan);
+    }
+
+    @Test
+    void categoryById_ReadsTheCategoryIndexInOrder() {
+        String plan = plan(books.getId(), null, null, false, null, 7);
+
+        assertTrue(plan.contains("CATEGORY_ID = ?1"), plan);
+        assertTrue(plan.contains("INDEX SORTED"), plan);
+    }
+
+    @Test
+    void findPage_ReturnsKeysetPagesInPriceOrder() {
+        List<Product> first = repo.findPage(books.getId(), 100, 250, true, null, 0, 5);
+        Product last = first.get(4);
+        List<Product> second = repo.findPage(books.getId(), 100, 250, true, last.getPrice(), last.getId(), 5);
+
+        List<Product> all = repo.findAll().stream()
+                .filter(p -> p.getCategory().getId() == books.getId() && p.getPrice() <= 250)
+                .sorted(Comparator.comparingInt(Product::getPrice).thenComparingInt(Product::getId))
+                .toList();
+        assertEquals(all.subList(0, 5).stream().map(Product::getId).toList(), first.stream().map(Product::getId).toList());
+        assertEquals(all.subList(5, 10).stream().map(Product::getId).toList(), second.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void findPageFields_SelectsOnlyRequestedAndCursorColumns() {
+        repo.findPageFields(List.of("name"), books.getId(), null, null, true, 150, 7, 10);
+        String sql = lastStatement.sql.toLowerCase(Locale.ROOT);
+        String select = sql.substring(0, sql.indexOf(" from "));
+
+        assertTrue(select.contains(".name"), sql);
+        assertTrue(select.contains(".id") && select.contains(".price"), sql);// for the next cursor
+        assertFalse(select.contains("name_key") || select.contains("version") || select.contains("category_id"), sql);
+    }
+
+    @Test
+    void findPageFields_ReturnsSameRowsWithoutManagingEntities() {
+        List<Product> entities = repo.findPage(books.getId(), 100, 250, true, null, 0, 5);
+        entityManager.clear();
+
+        List<Tuple> rows = repo.findPageFields(List.of("id", "price"), books.getId(), 100, 250, true, null, 0, 5);
+
+        assertEquals(entities.stream().map(Product::getId).toList(), rows.stream().map(t -> t.get("id", Integer.class)).toList());
+        assertEquals(entities.stream().map(Product::getPrice).toList(), rows.stream().map(t -> t.get("price", Integer.class)).toList());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());// nothing hydrated or snapshotted
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.services;
+
+import org.example.config.cacheConfig;
+import org.example.dto.categoryRequestDTO;
+import org.example.model.Category;
+import org.example.repository.categoryRepository;
+import org.example.repository.productRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.AopTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the category cache wiring of {@link categoryService} and {@link categoryRepository}.
+ *
+ * <p>Loads only the caching infrastructure and the service; the repositories are Mockito mocks
+ * wrapped by Spring's caching proxy, so the number of repository calls shows what was served from the cache.</p>
+ */
+@SpringJUnitConfig(CategoryCacheTest.Config.class)
+class CategoryCacheTest {
+
+    @Import({cacheConfig.class, categoryService.class})
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(cacheConfig.CATEGORIES, cacheConfig.CATEGORY_JSON);
+        }
+
+        // plain beans rather than @MockBean so the caching proxy is applied around the repository mock
+        @Bean
+        categoryRepository categoryRepository() {
+            return mock(categoryRepository.class);
+        }
+
+        @Bean
+        productRepository productRepository() {
+            return mock(productRepository.class);
+        }
+    }
+
+    @Autowired
+    private categoryRepository repo;// the caching proxy
+
+    private categoryRepository repoMock;// the mock behind it, for stubbing and verification
+
+    @Autowired
+    private categoryService service;
+
+    @MockBean// stands in for the statistics, which would load from a database at startup
+    private categoryStatsIndex stats;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Category books;
+
+    @BeforeEach
+    void setup() {
+        cacheManager.getCache(cacheConfig.CATEGORIES).clear();
+        cacheManager.getCache(cacheConfig.CATEGORY_JSON).clear();
+        repoMock = AopTestUtils.getUltimateTargetObject(repo);
+        reset(repoMock);
+        books = new Category("Books");
+        books.setId(1);
+    }
+
+    /**
+     * Test that repeated reads of the same category hit the repository once.
+     */
+    @Test
+    void getCategoryById_RepeatedReads_QueryOnce() {
+        when(repoMock.findCachedById(1)).thenReturn(Optional.of(books));
+
+        service.getCategoryById(1);
+        Category second = service.getCategoryById(1);
+
+        assertSame(books, second);
+        verify(repoMock, times(1)).findCachedById(1);
+    }
+
+    /**
+     * Test that unknown IDs are not cached, so a category created later is found.
+     */
+    @Test
+    void findCachedById_Miss_IsNotCached() {
+        when(repoMock.findCachedById(2)).thenReturn(Optional.empty());
+
+        assertTrue(repo.findCachedById(2).isEmpty());
+        assertTrue(repo.findCachedById(2).isEmpty());
+
+        verify(repoMock, times(2)).findCachedById(2);
+    }
+
+    /**
+     * Test that updating a category replaces the cached entry instead of leaving the stale one,
+     * and drops its cached response JSON.
+     */
+    @Test
+    void updateCategory_ReplacesCachedEntry() {
+        when(repoMock.findCachedById(1)).thenReturn(Optional.of(books));
+        service.getCategoryById(1);
+        cacheManager.getCache(cacheConfig.CATEGORY_JSON).put(1, "{}");
+
+        Category renamed = new Category("Novels");
+        renamed.setId(1);
+        renamed.setVersion(books.getVersion() + 1);// the rename bumped the version
+        when(repoMock.updateName(1, null, "Novels", "novels")).thenReturn(1);
+        when(repoMock.findById(1)).thenReturn(Optional.of(renamed));
+        categoryRequestDTO dto = new categoryRequestDTO();
+        dto.setName("Novels");
+        service.updateCategory(1, null, dto);
+
+        assertEquals("Novels", service.getCategoryById(1).getName());
+        assertEquals("Books", books.getName());// the previously cached instance was not modified
+        verify(repoMock, times(1)).findCachedById(1);
+        assertNull(cacheManager.getCache(cacheConfig.CATEGORY_JSON).get(1));
+    }
+
+    /**
+     * Test that deleting a category evicts exactly its entry.
+     */
+    @Test
+    void deleteCategory_EvictsEntry() {
+        Category toys = new Category("Toys");
+        toys.setId(2);
+        when(repoMock.findCachedById(1)).thenReturn(Optional.of(books));
+        when(repoMock.findCachedById(2)).thenReturn(Optional.of(toys));
+        service.getCategoryById(1);
+        service.getCategoryById(2);
+        cacheManager.getCache(cacheConfig.CATEGORY_JSON).put(1, "{}");
+        cacheManager.getCache(cacheConfig.CATEGORY_JSON).put(2, "{}");
+
+        when(repoMock.existsById(1)).thenReturn(true);
+        service.deleteCategory(1);
+
+        assertNull(cacheManager.getCache(cacheConfig.CATEGORIES).get(1));
+        assertNotNull(cacheManager.getCache(cacheConfig.CATEGORIES).get(2));
+        assertNull(cacheManager.getCache(cacheConfig.CATEGORY_JSON).get(1));
+        assertNotNull(cacheManager.getCache(cacheConfig.CATEGORY_JSON).get(2));
+    }
+}
@@ -2,13 +2,23 @@
 package org.example.services;
 import org.example.exception.customException;
 import org.example.model.Category;
+import org.example.model.Product;
 import org.example.repository.categoryRepository;
 import org.example.repository.productRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.hibernate.exception.ConstraintViolationException;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import java.sql.SQLException;
 import java.util.*;
+import org.example.dto.categoryFieldsDTO;
 import org.example.dto.categoryRequestDTO;
+import org.example.dto.categoryStatsDTO;
+import org.example.dto.categorySummaryDTO;
+import org.example.dto.productPageDTO;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 /**
@@ -26,6 +36,12 @@ class CategoryServiceTest {
     @Mock
     private productRepository productRepo;
 
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private categoryStatsIndex stats;
+
     @InjectMocks
     private categoryService service;
 
@@ -37,23 +53,95 @@ class CategoryServiceTest {
     // GET ALL CATEGORIES
     /**
      * Test getAllCategories when categories exist.
-     * Mocks repository to return a list of categories.
-     * Verifies that the service returns the correct list with expected names.
+     * Mocks repository to return a list of category summaries.
+     * Verifies that the service returns the correct list with expected names and counts.
      */
     @Test
     void getAllCategories_WhenCategoriesExist_ReturnsList() {
-        Category cat1 = new Category();
-        cat1.setName("Electronics");
-        Category cat2 = new Category();
-        cat2.setName("Books");
+        categorySummaryDTO cat1 = new categorySummaryDTO(1, "Electronics", 3);
+        categorySummaryDTO cat2 = new categorySummaryDTO(2, "Books", 0);
 
-        when(repo.findAll()).thenReturn(List.of(cat1, cat2));
+        when(repo.findAllSummaries()).thenReturn(List.of(cat1, cat2));
 
-        List<Category> result = service.getAllCategories();
+        List<categorySummaryDTO> result = service.getAllCategories();
 
         assertEquals(2, result.size());
         assertEquals("Electronics", result.get(0).getName());
+        assertEquals(3, result.get(0).getProductCount());
         assertEquals("Books", result.get(1).getName());
+        verify(repo, never()).findAll();
+    }
+
+    /**
+     * Test getCategoryFields with and without productCount.
+     * Verifies only the product-count read joins the products, and unrequested fields are left out.
+     */
+    @Test
+    void getCategoryFields_CountsProductsOnlyWhenRequested() {
+        when(repo.findAllIdsAndNames()).thenReturn(List.of(new categoryFieldsDTO(1, "Electronics")));
+        when(repo.findAllSummaries()).thenReturn(List.of(new categorySummaryDTO(1, "Electronics", 3)));
+
+        List<categoryFieldsDTO> names = service.getCategoryFields(Set.of("name"));
+        verify(repo, never()).findAllSummaries();
+        List<categoryFieldsDTO> counts = service.getCategoryFields(Set.of("id", "productCount"));
+
+        assertNull(names.get(0).getId());
+        assertEquals("Electronics", names.get(0).getName());
+        assertNull(names.get(0).getProductCount());
+        assertEquals(1, counts.get(0).getId());
+        assertNull(counts.get(0).getName());
+        assertEquals(3L, counts.get(0).getProductCount());
+    }
+
+    /**
+     * Test getCategoriesVersion combines the category and product stamps, so a product write
+     * (which changes the counts) also changes the version of the category list.
+     */
+    @Test
+    void getCategoriesVersion_CombinesCategoryAndProductStamps() {
+        when(repo.versionStamp()).thenReturn("2.3.0");
+        when(productRepo.versionStamp()).thenReturn("5.15.2", "6.21.2");
+
+        String before = service.getCategoriesVersion();
+        String after = service.getCategoriesVersion();
+
+        assertEquals("c2.3.0-p5.15.2", before);
+        assertNotEquals(before, after);
+        verify(repo, never()).findAllSummaries();
+    }
+
+    // GET CATEGORY PRODUCTS
+    /**
+     * Test getCategoryProducts when the category holds more products than the limit.
+     * Verifies one page is returned with a cursor and no existence check is made.
+     */
+    @Test
+    void getCategoryProducts_WhenMoreRowsThanLimit_ReturnsNextCursor() {
+        Product p1 = new Product();
+        p1.setId(4);
+        Product p2 = new Product();
+        p2.setId(9);
+        when(productRepo.findByCategoryIdAndIdGreaterThanOrderByIdAsc(1, 0, Limit.of(2))).thenReturn(List.of(p1, p2));
+
+        productPageDTO<Product> page = service.getCategoryProducts(1, null, 1);
+
+        assertEquals(List.of(p1), page.getItems());
+        assertEquals(4, productService.decodeCursor(page.getNextCursor()));
+        verify(repo, never()).findCachedById(anyInt());
+    }
+
+    /**
+     * Test getCategoryProducts when the category does not exist.
+     * Expects ResourceNotFoundException with correct message.
+     */
+    @Test
+    void getCategoryProducts_NotExists_ThrowsResourceNotFound() {
+        when(productRepo.findByCategoryIdAndIdGreaterThanOrderByIdAsc(42, 0, Limit.of(51))).thenReturn(List.of());
+        when(repo.findCachedById(42)).thenReturn(Optional.empty());
+
+        Exception ex = assertThrows(customException.ResourceNotFoundException.class,
+                () -> service.getCategoryProducts(42, null, 50));
+        assertEquals("Category with ID 42 not found", ex.getMessage());
     }
 
     // GET CATEGORY BY ID - exists
@@ -66,7 +154,7 @@ class CategoryServiceTest {
     void getCategoryById_WhenFound_ReturnsCategory() {
         Category cat = new Category();
         cat.setName("Books");
-        when(repo.findById(1)).thenReturn(Optional.of(cat));
+        when(repo.findCachedById(1)).thenReturn(Optional.of(cat));
 
         Category found = service.getCategoryById(1);
 
@@ -80,7 +168,7 @@ class CategoryServiceTest {
     // GET CATEGORY BY ID - not exists
     @Test
     void getCategoryById_NotExists_ThrowsResourceNotFoundException() {
-        when(repo.findById(23)).thenReturn(Optional.empty());
+        when(repo.findCachedById(23)).thenReturn(Optional.empty());
 
         Exception ex = assertThrows(customException.ResourceNotFoundException.class,
                 () -> service.getCategoryById(23));
@@ -112,14 +200,14 @@ class CategoryServiceTest {
     // CREATE CATEGORY - duplicate
     /**
      * Test createCategory with duplicate name.
-     * Mocks repository to indicate name already exists.
+     * Mocks repository to reject the insert with the unique name constraint.
      * Expects DuplicateResourceException with correct message.
      */
     @Test
     void createCategory_Duplicate_ThrowsDuplicateResource() {
         categoryRequestDTO dto = new categoryRequestDTO();
         dto.setName("Electronics");
-        when(repo.existsByNameIgnoreCase("Electronics")).thenReturn(true);
+        when(repo.saveAndFlush(any(Category.class))).thenThrow(nameKeyViolation());
         Exception ex = assertThrows(customException.DuplicateResourceException.class,
                 () -> service.createCategory(dto));
         assertEquals("Category with name 'Electronics' already exists", ex.getMessage());
@@ -146,18 +234,16 @@ class CategoryServiceTest {
 //    }
     @Test
     void createCategory_Valid_SavesAndReturns() {
-        when(repo.existsByNameIgnoreCase("Books")).thenReturn(false);
-
         Category cat = new Category();
         cat.setName("Books");
-        when(repo.save(any(Category.class))).thenReturn(cat);
+        when(repo.saveAndFlush(any(Category.class))).thenReturn(cat);
 
         categoryRequestDTO dto = new categoryRequestDTO();
         dto.setName("Books");
 
         Category result = service.createCategory(dto);
         assertEquals("Books", result.getName());
-        verify(repo, times(1)).save(any(Category.class));
+        verify(repo, times(1)).saveAndFlush(any(Category.class));
     }
 
     // UPDATE CATEGORY - not exists
@@ -176,13 +262,14 @@ class CategoryServiceTest {
 //    }
     @Test
     void updateCategory_CategoryNotExists_ThrowsResourceNotFound() {
-        when(repo.findById(6)).thenReturn(Optional.empty());
+        when(repo.updateName(6, null, "NewName", "newname")).thenReturn(0);
+        when(repo.existsById(6)).thenReturn(false);
 
         categoryRequestDTO dto = new categoryRequestDTO();
         dto.setName("NewName");
 
         Exception ex = assertThrows(customException.ResourceNotFoundException.class,
-                () -> service.updateCategory(6, dto));
+                () -> service.updateCategory(6, null, dto));
         assertEquals("Category with ID 6 not found", ex.getMessage());
     }
     // UPDATE CATEGORY - empty name
@@ -202,22 +289,19 @@ class CategoryServiceTest {
 //    }
     @Test
     void updateCategory_EmptyNewName_ThrowsValidationException() {
-        Category cat = new Category();
-        cat.setName("Electronics");
-        when(repo.findById(5)).thenReturn(Optional.of(cat));
-
         categoryRequestDTO dto = new categoryRequestDTO();
         dto.setName(""); // or even "   " for blank test
 
         Exception ex = assertThrows(customException.ValidationException.class,
-                () -> service.updateCategory(5, dto));
+                () -> service.updateCategory(5, null, dto));
         assertEquals("Category name cannot be empty", ex.getMessage());
+        verifyNoInteractions(repo);
     }
 
     // UPDATE CATEGORY - duplicate
     /**
      * Test updateCategory with duplicate new name.
-     * Mocks repository to indicate name already exists.
+     * Mocks repository to reject the update with the unique name constraint.
      * Expects DuplicateResourceException with correct message.
      */
 
@@ -234,16 +318,13 @@ class CategoryServiceTest {
 //    }
     @Test
     void updateCategory_DuplicateName_ThrowsDuplicateResourceException() {
-        Category cat = new Category();
-        cat.setName("Electronics");
-        when(repo.findById(4)).thenReturn(Optional.of(cat));
-        when(repo.existsByNameIgnoreCase("Books")).thenReturn(true);
+        when(repo.updateName(4, null, "Books", "books")).thenThrow(nameKeyViolation());
 
         categoryRequestDTO dto = new categoryRequestDTO();
         dto.setName("Books");
 
         Exception ex = assertThrows(customException.DuplicateResourceException.class,
-                () -> service.updateCategory(4, dto));
+                () -> service.updateCategory(4, null, dto));
         assertEquals("Category with name 'Books' already exists", ex.getMessage());
     }
 
@@ -270,21 +351,63 @@ class CategoryServiceTest {
 //    }
     @Test
     void updateCategory_Valid_UpdateAndSave() {
-        Category cat = new Category();
-        cat.setName("Electronics");
-        when(repo.findById(3)).thenReturn(Optional.of(cat));
-        when(repo.existsByNameIgnoreCase("Books")).thenReturn(false);
-
         Category updatedCat = new Category();
         updatedCat.setName("Books");
-        when(repo.save(any(Category.class))).thenReturn(updatedCat);
+        when(repo.updateName(3, null, "Books", "books")).thenReturn(1);
+        when(repo.findById(3)).thenReturn(Optional.of(updatedCat));
 
         categoryRequestDTO dto = new categoryRequestDTO();
         dto.setName("Books");
 
-        Category result = service.updateCategory(3, dto);
+        Category result = service.updateCategory(3, null, dto);
         assertEquals("Books", result.getName());
-        verify(repo, times(1)).save(cat);
+        verify(repo, never()).saveAndFlush(any());
+        verify(events).publishEvent(argThat((Object e) -> e instanceof nameChangeEvent event
+                && event.getKind() == nameChangeEvent.kind.CATEGORY && "Books".equals(event.getName(0))));
+    }
+
+    @Test
+    void updateCategory_StaleVersion_ThrowsPreconditionFailed() {
+        when(repo.updateName(3, 2, "Books", "books")).thenReturn(0);
+        when(repo.existsById(3)).thenReturn(true);
+
+        categoryRequestDTO dto = new categoryRequestDTO();
+        dto.setName("Books");
+
+        Exception ex = assertThrows(customException.PreconditionFailedException.class,
+                () -> service.updateCategory(3, 2, dto));
+        assertEquals("Category with ID 3 has changed since version 2", ex.getMessage());
+    }
+
+    @Test
+    void updateCategory_AnyVersionOfMissingCategory_ThrowsPreconditionFailed() {
+        when(repo.updateName(6, null, "NewName", "newname")).thenReturn(0);
+
+        categoryRequestDTO dto = new categoryRequestDTO();
+        dto.setName("NewName");
+
+        Exception ex = assertThrows(customException.PreconditionFailedException.class,
+                () -> service.updateCategory(6, categoryService.ANY_VERSION, dto));
+        assertEquals("Category with ID 6 does not exist", ex.getMessage());
+    }
+
+    @Test
+    void getCategoryStats_Exists_ReturnsStatsFromIndex() {
+        when(stats.get(3)).thenReturn(new categoryStatsDTO(3, "Books", 2, 100, 300, 200.0));
+
+        categoryStatsDTO result = service.getCategoryStats(3);
+
+        assertEquals(2, result.getProductCount());
+        assertEquals(200.0, result.getAveragePrice());
+        verifyNoInteractions(repo, productRepo);
+    }
+
+    @Test
+    void getCategoryStats_NotExists_ThrowsResourceNotFound() {
+        Exception ex = assertThrows(customException.ResourceNotFoundException.class,
+                () -> service.getCategoryStats(99));
+
+        assertEquals("Category with ID 99 not found", ex.getMessage());
     }
 
     // DELETE CATEGORY - not exists
@@ -315,5 +438,12 @@ class CategoryServiceTest {
         service.deleteCategory(70);
 
         verify(repo, times(1)).deleteById(70);
+        verify(events).publishEvent(argThat((Object e) -> e instanceof nameChangeEvent event
+                && event.getKind() == nameChangeEvent.kind.CATEGORY && event.getId(0) == 70 && event.getName(0) == null));
+    }
+
+    private static DataIntegrityViolationException nameKeyViolation() {
+        return new DataIntegrityViolationException("constraint violated",
+                new ConstraintViolationException("constraint violated", new SQLException(), "PUBLIC.UK_CATEGORIES_NAME_KEY_INDEX_4"));
     }
 }
@@ -0,0 +1,146 @@
+package org.example.services;
+
+import org.example.dto.categoryStatsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link categoryStatsIndex}, filled directly without Spring or a database.
+ */
+class CategoryStatsIndexTest {
+
+    private categoryStatsIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new categoryStatsIndex();
+        index.putCategory(1, "Books");
+        index.putCategory(2, "Games");
+        index.putCategory(3, "Empty");
+        index.putProduct(10, 1, 100);
+        index.putProduct(11, 1, 300);
+        index.putProduct(12, 1, 200);
+        index.putProduct(20, 2, 50);
+    }
+
+    @Test
+    void get_ReturnsCountMinMaxAndAverage() {
+        categoryStatsDTO books = index.get(1);
+
+        assertEquals("Books", books.getName());
+        assertEquals(3, books.getProductCount());
+        assertEquals(100, books.getMinPrice());
+        assertEquals(300, books.getMaxPrice());
+        assertEquals(200.0, books.getAveragePrice());
+    }
+
+    @Test
+    void get_EmptyCategoryHasNoPrices_UnknownCategoryIsNull() {
+        categoryStatsDTO empty = index.get(3);
+
+        assertEquals(0, empty.getProductCount());
+        assertNull(empty.getMinPrice());
+        assertNull(empty.getMaxPrice());
+        assertNull(empty.getAveragePrice());
+        assertNull(index.get(99));
+    }
+
+    @Test
+    void putProduct_MovingBetweenCategoriesUpdatesBoth() {
+        index.putProduct(11, 2, 400);// Books' most expensive product moves to Games at a new price
+
+        assertEquals(2, index.get(1).getProductCount());
+        assertEquals(200, index.get(1).getMaxPrice());
+        assertEquals(150.0, index.get(1).getAveragePrice());
+        assertEquals(2, index.get(2).getProductCount());
+        assertEquals(50, index.get(2).getMinPrice());
+        assertEquals(400, index.get(2).getMaxPrice());
+    }
+
+    @Test
+    void removeProduct_RecomputesMinimumFromRemainingPrices() {
+        index.putProduct(13, 1, 100);// a second product at the minimum price
+        index.removeProduct(10);
+
+        assertEquals(100, index.get(1).getMinPrice());
+        index.removeProduct(13);
+        assertEquals(200, index.get(1).getMinPrice());
+        index.removeProduct(99);// not counted: ignored
+        assertEquals(2, index.get(1).getProductCount());
+    }
+
+    @Test
+    void events_ApplyProductAndCategoryChanges() {
+        index.onProductChange(new productChangeEvent(new int[]{30, 31}, new int[]{0, 0}, new int[]{3, 3}, new int[]{10, 20}));
+        index.onProductChange(productChangeEvent.deleted(20));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.CATEGORY, 2, 1, "Board Games"));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, 30, 1, "Ignored"));
+
+        assertEquals(15.0, index.get(3).getAveragePrice());
+        assertEquals(0, index.get(2).getProductCount());
+        assertEquals("Board Games", index.get(2).getName());
+
+        index.onNameChange(nameChangeEvent.deleted(nameChangeEvent.kind.CATEGORY, 2));
+        assertNull(index.get(2));
+        assertEquals(List.of(1, 3), index.getAll().stream().map(categoryStatsDTO::getId).toList());
+    }
+
+    @Test
+    void events_OlderThanAppliedChangeAreIgnored() {
+        index.onProductChange(productChangeEvent.saved(40, 0, 3, 10));
+        index.onProductChange(productChangeEvent.saved(40, 2, 2, 500));// moved and repriced at version 2
+        index.onProductChange(productChangeEvent.saved(40, 1, 3, 30));// version 1 committed earlier, applied late
+
+        assertEquals(0, index.get(3).getProductCount());
+        assertEquals(2, index.get(2).getProductCount());
+        assertEquals(500, index.get(2).getMaxPrice());
+
+        index.onProductChange(productChangeEvent.deleted(40));
+        index.onProductChange(productChangeEvent.saved(40, 3, 3, 30));// an update that committed before the deletion
+        assertEquals(1, index.get(2).getProductCount());
+        assertEquals(0, index.get(3).getProductCount());
+
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.CATEGORY, 1, 2, "Novels"));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.CATEGORY, 1, 1, "Fiction"));
+        assertEquals("Novels", index.get(1).getName());
+    }
+
+    /** Random creations, moves, price changes and deletions, checked against a full recomputation. */
+    @Test
+    void stats_MatchARecomputationAfterRandomChanges() {
+        Map<Integer, int[]> products = new HashMap<>();// ID -> {category, price}
+        Random random = new Random(3);
+        for (int step = 0; step < 5_000; step++) {
+            int id = 100 + random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                index.removeProduct(id);
+                products.remove(id);
+            } else {
+                int category = 1 + random.nextInt(3);
+                int price = 1 + random.nextInt(20);
+                index.putProduct(id, category, price);
+                products.put(id, new int[]{category, price});
+            }
+        }
+        products.put(10, new int[]{1, 100});
+        products.put(11, new int[]{1, 300});
+        products.put(12, new int[]{1, 200});
+        products.put(20, new int[]{2, 50});
+        for (int category = 1; category <= 3; category++) {
+            int c = category;
+            List<Integer> prices = products.values().stream().filter(p -> p[0] == c).map(p -> p[1]).toList();
+            categoryStatsDTO stats = index.get(category);
+            assertEquals(prices.size(), stats.getProductCount());
+            assertEquals(prices.stream().min(Integer::compare).orElse(null), stats.getMinPrice());
+            assertEquals(prices.stream().max(Integer::compare).orElse(null), stats.getMaxPrice());
+            assertEquals(prices.stream().mapToInt(Integer::intValue).average().orElse(0), stats.getAveragePrice(), 1e-9);
+        }
+    }
+}
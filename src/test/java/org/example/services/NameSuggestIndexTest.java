@@ -0,0 +1,131 @@
+package org.example.services;
+
+import org.example.dto.suggestionDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link nameSuggestIndex}, filled directly without Spring or a database.
+ */
+class NameSuggestIndexTest {
+
+    private nameSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new nameSuggestIndex();
+        index.putCategory(1, "Garden");
+        index.putProduct(1, "Garden Hose");
+        index.putProduct(2, "Garlic Press");
+        index.putProduct(3, "Gardening Gloves");
+        index.putProduct(4, "Lamp");
+    }
+
+    private static List<String> names(List<suggestionDTO> suggestions) {
+        return suggestions.stream().map(suggestionDTO::getName).toList();
+    }
+
+    @Test
+    void suggest_ReturnsProductsAndCategoriesShortestFirst() {
+        List<suggestionDTO> result = index.suggest("gar", 10);
+
+        assertEquals(List.of("Garden", "Garden Hose", "Garlic Press", "Gardening Gloves"), names(result));
+        assertEquals(suggestionDTO.CATEGORY, result.get(0).getType());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(suggestionDTO.PRODUCT, result.get(1).getType());
+    }
+
+    @Test
+    void suggest_IgnoresCaseAndLeadingSpacesAndMayEndInsideAnEdge() {
+        assertEquals(List.of("Garden Hose"), names(index.suggest("  GARDEN H", 10)));
+        assertEquals(List.of("Gardening Gloves"), names(index.suggest("gardeni", 10)));
+        assertEquals(List.of(), names(index.suggest("gardenx", 10)));
+        assertEquals(List.of(), names(index.suggest("x", 10)));
+    }
+
+    @Test
+    void suggest_HonoursTheLimit() {
+        assertEquals(List.of("Garden", "Garden Hose"), names(index.suggest("g", 2)));
+    }
+
+    @Test
+    void putAndRemove_ReplaceAndDropNames() {
+        index.putProduct(4, "Garden Lamp");// renamed
+        index.removeCategory(1);
+
+        assertEquals(List.of("Garden Hose", "Garden Lamp", "Garlic Press", "Gardening Gloves"),
+                names(index.suggest("gar", 10)));
+        assertEquals(List.of(), names(index.suggest("lamp", 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void onNameChange_AppliesProductAndCategoryEvents() {
+        index.onNameChange(new nameChangeEvent(nameChangeEvent.kind.PRODUCT,
+                new int[]{5, 2}, new int[]{0, 0}, new String[]{"Lantern", null}));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.CATEGORY, 2, 1, "Lighting"));
+
+        assertEquals(List.of("Lamp", "Lantern"), names(index.suggest("la", 10)));
+        assertEquals(List.of("Lighting"), names(index.suggest("li", 10)));
+        assertEquals(List.of(), names(index.suggest("garl", 10)));
+    }
+
+    @Test
+    void onNameChange_IgnoresChangesOlderThanAppliedOnes() {
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, 7, 2, "Lantern"));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, 7, 1, "Lamp Shade"));// committed first, applied late
+        index.onNameChange(nameChangeEvent.deleted(nameChangeEvent.kind.CATEGORY, 8));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.CATEGORY, 8, 0, "Lamps"));// created before the deletion
+
+        assertEquals(List.of("Lantern"), names(index.suggest("lan", 10)));
+        assertEquals(List.of("Lamp"), names(index.suggest("lamp", 10)));// neither "Lamp Shade" nor "Lamps"
+    }
+
+    /**
+     * Random puts, renames and removes on a small alphabet, so that edges are split, stored lists are
+     * created and released, and nodes are pruned; every prefix is checked against a sorted map.
+     */
+    @Test
+    void suggest_MatchesABruteForceScanAfterRandomChanges() {
+        index = new nameSuggestIndex();
+        TreeMap<Integer, String> products = new TreeMap<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 5_000; step++) {
+            int id = 1 + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                index.removeProduct(id);
+                products.remove(id);
+            } else {
+                StringBuilder name = new StringBuilder();
+                for (int i = 1 + random.nextInt(6); i > 0; i--) {
+                    name.append("abC".charAt(random.nextInt(3)));
+                }
+                index.putProduct(id, name.toString());
+                products.put(id, name.toString());
+            }
+            if (step % 250 == 0 || step == 4_999) {
+                for (String prefix : List.of("a", "b", "ab", "ca", "abc", "bba", "cab", "aaa")) {
+                    List<String> expected = new ArrayList<>();
+                    products.entrySet().stream()
+                            .filter(p -> p.getValue().toLowerCase().startsWith(prefix))
+                            .sorted(Comparator.<Map.Entry<Integer, String>>comparingInt(p -> p.getValue().length())
+                                    .thenComparing(p -> p.getValue().toLowerCase())
+                                    .thenComparing(Map.Entry::getKey))
+                            .limit(nameSuggestIndex.TOP_K)
+                            .forEach(p -> expected.add(p.getValue()));
+                    assertEquals(expected, names(index.suggest(prefix, nameSuggestIndex.TOP_K)), "prefix " + prefix);
+                }
+                assertEquals(products.size(), index.size());
+            }
+        }
+    }
+}
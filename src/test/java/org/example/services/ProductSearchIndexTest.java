@@ -0,0 +1,100 @@
+package org.example.services;
+
+import org.example.dto.productNameDTO;
+import org.example.dto.productSearchResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link productSearchIndex}, filled directly without Spring or a database.
+ */
+class ProductSearchIndexTest {
+
+    private productSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new productSearchIndex();
+        index.put(1, "Garden Hose");
+        index.put(2, "Hose");
+        index.put(3, "Rose Garden Kit");
+        index.put(4, "Hosepipe Reel");
+        index.put(5, "Chosen Bundle");
+    }
+
+    private static List<Integer> ids(productSearchResultDTO result) {
+        return result.getItems().stream().map(productNameDTO::getId).toList();
+    }
+
+    @Test
+    void search_RanksWholeNameThenPrefixThenWordStartThenInfix() {
+        productSearchResultDTO result = index.search("HOSE", 0, 10);
+
+        assertEquals(List.of(2, 4, 1, 5), ids(result));
+        assertEquals(4, result.getTotal());
+        assertEquals("Hose", result.getItems().get(0).getName());
+    }
+
+    @Test
+    void search_ShortQueryMatchesPrefixesOnly() {
+        assertEquals(List.of(2, 4), ids(index.search("ho", 0, 10)));
+        assertEquals(List.of(1), ids(index.search("g", 0, 10)));
+    }
+
+    @Test
+    void search_RequiresTheWholeQueryNotJustItsTrigrams() {
+        assertEquals(List.of(), ids(index.search("hose garden", 0, 10)));
+        assertEquals(List.of(1), ids(index.search("n hose", 0, 10)));
+    }
+
+    @Test
+    void onNameChange_IgnoresChangesOlderThanAppliedOnes() {
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, 6, 2, "Watering Can"));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, 6, 1, "Garden Spade"));// committed first, applied late
+        index.onNameChange(nameChangeEvent.deleted(nameChangeEvent.kind.PRODUCT, 2));
+        index.onNameChange(nameChangeEvent.saved(nameChangeEvent.kind.PRODUCT, 2, 3, "Hose"));// renamed before the deletion
+
+        assertEquals(List.of(6), ids(index.search("watering", 0, 10)));
+        assertEquals(List.of(), ids(index.search("spade", 0, 10)));
+        assertEquals(List.of(4, 1, 5), ids(index.search("hose", 0, 10)));
+    }
+
+    @Test
+    void search_PagesThroughRankedMatchesAndKeepsTheTotal() {
+        productSearchResultDTO page = index.search("hose", 1, 2);
+
+        assertEquals(List.of(4, 1), ids(page));
+        assertEquals(4, page.getTotal());
+        assertEquals(List.of(), ids(index.search("hose", 10, 2)));
+    }
+
+    @Test
+    void put_ReplacesTheNameOfAnIndexedProduct() {
+        index.put(2, "Watering Can");
+
+        assertEquals(List.of(4, 1, 5), ids(index.search("hose", 0, 10)));
+        assertEquals(List.of(2), ids(index.search("can", 0, 10)));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void remove_DropsTheProduct() {
+        index.remove(4);
+        index.remove(99);// not indexed
+
+        assertEquals(List.of(2, 1, 5), ids(index.search("hose", 0, 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void search_UnknownTrigramFindsNothing() {
+        productSearchResultDTO result = index.search("xyz", 0, 10);
+
+        assertEquals(0, result.getTotal());
+        assertTrue(result.getItems().isEmpty());
+    }
+}
@@ -380,20 +380,48 @@
 //}
 package org.example.services;
 
+import org.example.config.cacheConfig;
+import org.example.dto.bulkImportResultDTO;
+import org.example.dto.productBatchDTO;
+import org.example.dto.productFieldsDTO;
+import org.example.dto.productNameDTO;
+import org.example.dto.productPageDTO;
 import org.example.dto.productPatchDTO;
 import org.example.dto.productRequestDTO;
+import org.example.dto.productSearchResultDTO;
 import org.example.exception.customException;
 import org.example.model.Category;
 import org.example.model.Product;
 import org.example.repository.categoryRepository;
 import org.example.repository.productRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+import static org.example.services.productService.ANY_VERSION;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -405,6 +433,18 @@ class ProductServiceTest {
     @Mock
     private categoryRepository categoryRepo;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private productSearchIndex searchIndex;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private CacheManager cacheManager;
+
     @InjectMocks
     private productService productService;
 
@@ -413,6 +453,8 @@ class ProductServiceTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(productService, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
 
         testCategory = new Category();
         testCategory.setId(1);
@@ -442,6 +484,147 @@ class ProductServiceTest {
         assertEquals(1, result.get(0).getCategory().getId());
     }
 
+    @Test
+    void getProductsPage_WhenMoreRowsThanLimit_ReturnsNextCursor() {
+        Product p1 = new Product();
+        p1.setId(1);
+        Product p2 = new Product();
+        p2.setId(2);
+        Product p3 = new Product();
+        p3.setId(3);
+
+        when(productsRepo.findPage(null, null, null, false, null, 0, 3)).thenReturn(List.of(p1, p2, p3));
+
+        productPageDTO<Product> page = productService.getProductsPage(null, null, null, "id", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(2, productService.decodeCursor(page.getNextCursor()));
+    }
+
+    @Test
+    void getProductsPage_LastPage_HasNoCursor() {
+        Product p3 = new Product();
+        p3.setId(3);
+
+        when(productsRepo.findPage(null, null, null, false, null, 2, 3)).thenReturn(List.of(p3));
+
+        productPageDTO<Product> page = productService.getProductsPage(null, null, null, "id", productService.encodeCursor(2), 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getProductsPage_InvalidCursor_Throws() {
+        Exception ex = assertThrows(customException.ValidationException.class,
+                () -> productService.getProductsPage(null, null, null, "id", "not-a-cursor", 10));
+
+        assertEquals("Invalid cursor 'not-a-cursor'", ex.getMessage());
+    }
+
+    @Test
+    void getProductsPage_LimitOutOfRange_Throws() {
+        Exception ex = assertThrows(customException.ValidationException.class,
+                () -> productService.getProductsPage(null, null, null, "id", null, 501));
+
+        assertEquals("Limit must be between 1 and 500", ex.getMessage());
+    }
+
+    @Test
+    void getProductsPage_ByPrice_CursorCarriesLastPriceAndId() {
+        Product p1 = new Product();
+        p1.setId(9);
+        p1.setPrice(100);
+        Product p2 = new Product();
+        p2.setId(4);
+        p2.setPrice(250);
+        Product p3 = new Product();
+        p3.setId(2);
+        p3.setPrice(300);
+
+        when(productsRepo.findPage(1, 100, 500, true, null, 0, 3)).thenReturn(List.of(p1, p2, p3));
+
+        productPageDTO<Product> page = productService.getProductsPage(1, 100, 500, "price", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertArrayEquals(new int[]{250, 4}, productService.decodePriceCursor(page.getNextCursor()));
+
+        when(productsRepo.findPage(1, 100, 500, true, 250, 4, 3)).thenReturn(List.of(p3));
+
+        assertNull(productService.getProductsPage(1, 100, 500, "price", page.getNextCursor(), 2).getNextCursor());
+    }
+
+    private static Tuple row(int id, String name, int price) {
+        Tuple row = mock(Tuple.class);
+        lenient().when(row.get("id", Integer.class)).thenReturn(id);
+        lenient().when(row.get("name", String.class)).thenReturn(name);
+        lenient().when(row.get("price", Integer.class)).thenReturn(price);
+        return row;
+    }
+
+    @Test
+    void getProductFieldsPage_ByPrice_SetsOnlyRequestedFieldsAndBuildsCursor() {
+        Set<String> fields = productService.parseFields("price", productFieldsDTO.FIELDS);
+        List<Tuple> rows = List.of(row(9, "A", 100), row(4, "B", 250), row(2, "C", 300));
+        when(productsRepo.findPageFields(fields, null, null, null, true, null, 0, 3)).thenReturn(rows);
+
+        productPageDTO<productFieldsDTO> page = productService.getProductFieldsPage(fields, null, null, null, "price", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(250, page.getItems().get(1).getPrice());
+        assertNull(page.getItems().get(1).getId());// read for the cursor, not returned
+        assertNull(page.getItems().get(1).getName());
+        assertArrayEquals(new int[]{250, 4}, productService.decodePriceCursor(page.getNextCursor()));
+    }
+
+    @Test
+    void parseFields_KeepsKnownOrderAndRejectsUnknownOrEmpty() {
+        assertEquals(List.of("id", "price"), List.copyOf(productService.parseFields(" price,id,price ", productFieldsDTO.FIELDS)));
+
+        Exception unknown = assertThrows(customException.ValidationException.class,
+                () -> productService.parseFields("id,category", productFieldsDTO.FIELDS));
+        assertEquals("Unknown field 'category'; choose from id, name, price", unknown.getMessage());
+        assertThrows(customException.ValidationException.class, () -> productService.parseFields(" , ", productFieldsDTO.FIELDS));
+    }
+
+    @Test
+    void getProductsPage_ByPrice_RejectsAnIdCursor() {
+        Exception ex = assertThrows(customException.ValidationException.class,
+                () -> productService.getProductsPage(null, null, null, "price", productService.encodeCursor(2), 10));
+
+        assertEquals("Invalid cursor 'Mg'", ex.getMessage());
+    }
+
+    @Test
+    void getProductsPage_InvalidSortOrPriceRange_Throws() {
+        Exception sort = assertThrows(customException.ValidationException.class,
+                () -> productService.getProductsPage(null, null, null, "name", null, 10));
+        Exception range = assertThrows(customException.ValidationException.class,
+                () -> productService.getProductsPage(null, 500, 100, "price", null, 10));
+
+        assertEquals("Sort must be 'id' or 'price'", sort.getMessage());
+        assertEquals("minPrice cannot be greater than maxPrice", range.getMessage());
+        verifyNoInteractions(productsRepo);
+    }
+
+    @Test
+    void exportProducts_StreamsAndDetachesEveryProduct() {
+        Product p1 = new Product();
+        p1.setId(1);
+        Product p2 = new Product();
+        p2.setId(2);
+
+        when(productsRepo.streamAll()).thenReturn(Stream.of(p1, p2));
+
+        List<Product> exported = new ArrayList<>();
+        long count = productService.exportProducts(exported::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of(p1, p2), exported);
+        verify(entityManager).detach(p1);
+        verify(entityManager).detach(p2);
+    }
+
     @Test
     void getProductById_WhenExists_ReturnsProduct() {
         Product p = new Product();
@@ -450,7 +633,7 @@ class ProductServiceTest {
         p.setPrice(1000);
         p.setCategory(testCategory);
 
-        when(productsRepo.findById(5)).thenReturn(Optional.of(p));
+        when(productsRepo.findCachedById(5)).thenReturn(Optional.of(p));
 
         Product found = productService.getProductById(5);
 
@@ -460,7 +643,7 @@ class ProductServiceTest {
 
     @Test
     void getProductById_NotExists_ThrowsException() {
-        when(productsRepo.findById(99)).thenReturn(Optional.empty());
+        when(productsRepo.findCachedById(99)).thenReturn(Optional.empty());
 
         Exception ex = assertThrows(customException.ResourceNotFoundException.class,
                 () -> productService.getProductById(99));
@@ -468,6 +651,106 @@ class ProductServiceTest {
         assertEquals("Product with ID 99 not found", ex.getMessage());
     }
 
+    @Test
+    void getProductById_ConcurrentCallsForSameId_QueryOnce() throws Exception {
+        Product p = new Product();
+        p.setId(5);
+        p.setName("Laptop");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productsRepo.findCachedById(5)).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(p);
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Product>> results = new ArrayList<>();
+            results.add(pool.submit(() -> productService.getProductById(5)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> productService.getProductById(5)));
+            }
+            Thread.sleep(100);// let the other calls join the one in flight
+            release.countDown();
+
+            for (Future<Product> result : results) {
+                assertSame(p, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(productsRepo, times(1)).findCachedById(5);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /* ========================= BATCH GET ========================= */
+
+    @Test
+    void getProductsByIds_ServesCacheHitsAndQueriesMissesOnce() {
+        Product cached = new Product();
+        cached.setId(3);
+        Product loaded = new Product();
+        loaded.setId(8);
+        Cache cache = new ConcurrentMapCache(cacheConfig.PRODUCTS);
+        cache.put(3, cached);
+        when(cacheManager.getCache(cacheConfig.PRODUCTS)).thenReturn(cache);
+        when(productsRepo.findAllById(List.of(8, 404))).thenReturn(List.of(loaded));
+
+        productBatchDTO result = productService.getProductsByIds(List.of(8, 3, 404, 8));
+
+        assertEquals(List.of(8, 3), result.getItems().stream().map(Product::getId).toList());
+        assertEquals(List.of(404), result.getMissing());
+        assertSame(loaded, cache.get(8, Product.class));// misses are cached for the next request
+        verify(productsRepo, times(1)).findAllById(anyIterable());
+        verify(productsRepo, never()).findById(anyInt());
+    }
+
+    @Test
+    void getProductsByIds_AllCached_RunsNoQuery() {
+        Product cached = new Product();
+        cached.setId(3);
+        Cache cache = new ConcurrentMapCache(cacheConfig.PRODUCTS);
+        cache.put(3, cached);
+        when(cacheManager.getCache(cacheConfig.PRODUCTS)).thenReturn(cache);
+
+        assertEquals(List.of(cached), productService.getProductsByIds(List.of(3)).getItems());
+        verifyNoInteractions(productsRepo);
+    }
+
+    @Test
+    void getProductsByIds_UpdateCachedDuringQuery_KeepsNewerVersion() {
+        Product stale = new Product();
+        stale.setId(8);
+        stale.setVersion(1);
+        Product updated = new Product();
+        updated.setId(8);
+        updated.setVersion(2);
+        Cache cache = new ConcurrentMapCache(cacheConfig.PRODUCTS);
+        when(cacheManager.getCache(cacheConfig.PRODUCTS)).thenReturn(cache);
+        when(productsRepo.findAllById(List.of(8))).thenAnswer(invocation -> {
+            cache.put(8, updated);// an update committed and cached version 2 while the query ran
+            return List.of(stale);
+        });
+
+        productService.getProductsByIds(List.of(8));
+
+        assertSame(updated, cache.get(8, Product.class));
+    }
+
+    @Test
+    void getProductsByIds_WithoutProductCache_QueriesEverything() {
+        Product p1 = new Product();
+        p1.setId(1);
+        Product p2 = new Product();
+        p2.setId(2);
+        when(productsRepo.findAllById(List.of(2, 1))).thenReturn(List.of(p1, p2));// IN returns them in any order
+
+        productBatchDTO result = productService.getProductsByIds(List.of(2, 1));
+
+        assertEquals(List.of(2, 1), result.getItems().stream().map(Product::getId).toList());
+        assertEquals(List.of(), result.getMissing());
+    }
+
     /* ========================= CREATE ========================= */
 
     @Test
@@ -477,29 +760,35 @@ class ProductServiceTest {
         dto.setPrice(1000);
         dto.setCategoryId(1);
 
-        when(productsRepo.existsByNameIgnoreCase("Laptop")).thenReturn(false);
-        when(categoryRepo.existsById(1)).thenReturn(true);
-        when(categoryRepo.findById(1)).thenReturn(Optional.of(testCategory));
+        when(categoryRepo.findCachedById(1)).thenReturn(Optional.of(testCategory));
 
         Product saved = new Product();
+        saved.setId(7);
         saved.setName("Laptop");
         saved.setPrice(1000);
         saved.setCategory(testCategory);
 
-        when(productsRepo.save(any(Product.class))).thenReturn(saved);
+        when(productsRepo.saveAndFlush(any(Product.class))).thenReturn(saved);
 
         Product result = productService.createProduct(dto);
 
         assertEquals("Laptop", result.getName());
         assertEquals(1, result.getCategory().getId());
+        verify(categoryRepo, never()).existsById(anyInt());
+        verify(categoryRepo, never()).findById(any());
+        verify(events).publishEvent(productNames(7, "Laptop"));
+        verify(events).publishEvent(productPrice(7, 1, 1000));
     }
 
     @Test
     void createProduct_DuplicateName_Throws() {
-        when(productsRepo.existsByNameIgnoreCase("Laptop")).thenReturn(true);
+        when(categoryRepo.findCachedById(1)).thenReturn(Optional.of(testCategory));
+        when(productsRepo.saveAndFlush(any(Product.class))).thenThrow(constraintViolation("PUBLIC.UK_PRODUCTS_NAME_KEY_INDEX_F"));
 
         productRequestDTO dto = new productRequestDTO();
         dto.setName("Laptop");
+        dto.setPrice(1000);
+        dto.setCategoryId(1);
 
         Exception ex = assertThrows(customException.DuplicateResourceException.class,
                 () -> productService.createProduct(dto));
@@ -507,10 +796,25 @@ class ProductServiceTest {
         assertEquals("Product with name 'Laptop' already exists", ex.getMessage());
     }
 
+    @Test
+    void createProduct_CategoryDeletedConcurrently_Throws() {
+        when(categoryRepo.findCachedById(1)).thenReturn(Optional.of(testCategory));
+        when(productsRepo.saveAndFlush(any(Product.class))).thenThrow(constraintViolation("PUBLIC.FK_PRODUCTS_CATEGORY"));
+
+        productRequestDTO dto = new productRequestDTO();
+        dto.setName("Laptop");
+        dto.setPrice(1000);
+        dto.setCategoryId(1);
+
+        Exception ex = assertThrows(customException.ResourceNotFoundException.class,
+                () -> productService.createProduct(dto));
+
+        assertEquals("Category with ID 1 does not exist", ex.getMessage());
+    }
+
     @Test
     void createProduct_InvalidCategory_Throws() {
-        when(productsRepo.existsByNameIgnoreCase("Laptop")).thenReturn(false);
-        when(categoryRepo.existsById(999)).thenReturn(false);
+        when(categoryRepo.findCachedById(999)).thenReturn(Optional.empty());
 
         productRequestDTO dto = new productRequestDTO();
         dto.setName("Laptop");
@@ -527,61 +831,243 @@ class ProductServiceTest {
 
     @Test
     void updateProduct_Valid_UpdateNameAndPrice() {
-        Product existing = new Product();
-        existing.setId(1);
-        existing.setName("Laptop");
-        existing.setPrice(1000);
-        existing.setCategory(testCategory);
+        Product updated = new Product();
+        updated.setId(1);
+        updated.setName("Phone");
+        updated.setPrice(1500);
+        updated.setCategory(testCategory);
 
-        when(productsRepo.findById(1)).thenReturn(Optional.of(existing));
-        when(productsRepo.existsByNameIgnoreCase("Phone")).thenReturn(false);
+        when(productsRepo.updateFields(1, null, "Phone", 1500, null)).thenReturn(1);
+        when(productsRepo.findById(1)).thenReturn(Optional.of(updated));
 
         productPatchDTO dto = new productPatchDTO();
-        dto.setName("Phone");
+        dto.setName(" Phone ");
         dto.setPrice(1500);
 
-        when(productsRepo.save(any(Product.class))).thenAnswer(i -> i.getArgument(0));
-
-        Product result = productService.updateProduct(1, dto);
+        Product result = productService.updateProduct(1, null, dto);
 
         assertEquals("Phone", result.getName());
         assertEquals(1500, result.getPrice());
+        verify(productsRepo, never()).saveAndFlush(any());
+        verify(events).publishEvent(productNames(1, "Phone"));
+        verify(events).publishEvent(productPrice(1, 1, 1500));
     }
 
     @Test
-    void updateProduct_InvalidPrice_Throws() {
-        Product existing = new Product();
-        existing.setId(2);
-        existing.setPrice(1000);
-        existing.setCategory(testCategory);
+    void updateProduct_MatchingVersion_UpdatesOnlyThatVersion() {
+        Product updated = new Product();
+        updated.setId(1);
+        updated.setVersion(4);
+        updated.setPrice(1500);
+        updated.setCategory(testCategory);
 
-        when(productsRepo.findById(2)).thenReturn(Optional.of(existing));
+        when(productsRepo.updateFields(1, 3, null, 1500, null)).thenReturn(1);
+        when(productsRepo.findById(1)).thenReturn(Optional.of(updated));
 
+        productPatchDTO dto = new productPatchDTO();
+        dto.setPrice(1500);
+
+        assertEquals(4, productService.updateProduct(1, 3, dto).getVersion());
+        verify(events).publishEvent(productPrice(1, 1, 1500));
+        verifyNoMoreInteractions(events);// no name event: the name did not change
+    }
+
+    @Test
+    void updateProduct_StaleVersion_ThrowsPreconditionFailed() {
+        when(productsRepo.updateFields(1, 3, null, 1500, null)).thenReturn(0);
+        when(productsRepo.existsById(1)).thenReturn(true);
+
+        productPatchDTO dto = new productPatchDTO();
+        dto.setPrice(1500);
+
+        Exception ex = assertThrows(customException.PreconditionFailedException.class,
+                () -> productService.updateProduct(1, 3, dto));
+
+        assertEquals("Product with ID 1 has changed since version 3", ex.getMessage());
+        verify(productsRepo, never()).findById(1);
+    }
+
+    @Test
+    void updateProduct_ProductNotExists_ThrowsResourceNotFound() {
+        when(productsRepo.updateFields(9, null, null, 1500, null)).thenReturn(0);
+        when(productsRepo.existsById(9)).thenReturn(false);
+
+        productPatchDTO dto = new productPatchDTO();
+        dto.setPrice(1500);
+
+        Exception ex = assertThrows(customException.ResourceNotFoundException.class,
+                () -> productService.updateProduct(9, null, dto));
+
+        assertEquals("Product with ID 9 not found", ex.getMessage());
+    }
+
+    @Test
+    void updateProduct_AnyVersionOfMissingProduct_ThrowsPreconditionFailed() {
+        when(productsRepo.updateFields(9, null, null, 1500, null)).thenReturn(0);
+
+        productPatchDTO dto = new productPatchDTO();
+        dto.setPrice(1500);
+
+        Exception ex = assertThrows(customException.PreconditionFailedException.class,
+                () -> productService.updateProduct(9, ANY_VERSION, dto));
+
+        assertEquals("Product with ID 9 does not exist", ex.getMessage());
+    }
+
+    @Test
+    void updateProduct_AnyVersionOfExistingProduct_UpdatesUnconditionally() {
+        Product updated = new Product();
+        updated.setId(1);
+        updated.setVersion(8);
+        updated.setPrice(1500);
+        updated.setCategory(testCategory);
+        when(productsRepo.updateFields(1, null, null, 1500, null)).thenReturn(1);
+        when(productsRepo.findById(1)).thenReturn(Optional.of(updated));
+
+        productPatchDTO dto = new productPatchDTO();
+        dto.setPrice(1500);
+
+        assertEquals(8, productService.updateProduct(1, ANY_VERSION, dto).getVersion());
+    }
+
+    @Test
+    void updateProduct_DuplicateName_Throws() {
+        when(productsRepo.updateFields(6, null, "Phone", null, null))
+                .thenThrow(constraintViolation("PUBLIC.UK_PRODUCTS_NAME_KEY_INDEX_F"));
+
+        productPatchDTO dto = new productPatchDTO();
+        dto.setName("Phone");
+
+        Exception ex = assertThrows(customException.DuplicateResourceException.class,
+                () -> productService.updateProduct(6, null, dto));
+
+        assertEquals("Product with name 'Phone' already exists", ex.getMessage());
+    }
+
+    @Test
+    void updateProduct_InvalidPrice_Throws() {
         productPatchDTO dto = new productPatchDTO();
         dto.setPrice(-10);
 
         Exception ex = assertThrows(customException.ValidationException.class,
-                () -> productService.updateProduct(2, dto));
+                () -> productService.updateProduct(2, null, dto));
 
         assertEquals("Price must be greater than 0", ex.getMessage());
+        verifyNoInteractions(productsRepo);
     }
 
     @Test
     void updateProduct_InvalidCategory_Throws() {
-        Product existing = new Product();
-        existing.setId(3);
-        existing.setCategory(testCategory);
-
-        when(productsRepo.findById(3)).thenReturn(Optional.of(existing));
-        when(categoryRepo.findById(999)).thenReturn(Optional.empty());
+        when(categoryRepo.findCachedById(999)).thenReturn(Optional.empty());
 
         productPatchDTO dto = new productPatchDTO();
         dto.setCategoryId(999);
 
         Exception ex = assertThrows(customException.ResourceNotFoundException.class,
-                () -> productService.updateProduct(3, dto));
+                () -> productService.updateProduct(3, null, dto));
 
         assertEquals("Category with ID 999 does not exist", ex.getMessage());
+        verifyNoInteractions(productsRepo);
+    }
+
+    /* ========================= BULK IMPORT ========================= */
+
+    @Test
+    void importProducts_ReportsRejectedRowsAndSavesTheRest() {
+        when(categoryRepo.findExistingIds(anyCollection())).thenReturn(List.of(1));
+        when(productsRepo.findExistingNameKeys(anyCollection())).thenReturn(List.of("laptop"));
+        when(categoryRepo.getReferenceById(1)).thenReturn(testCategory);
+
+        List<productRequestDTO> rows = new ArrayList<>();
+        rows.add(request("Phone", 500, 1));
+        rows.add(request(" LAPTOP ", 1000, 1)); // already in the DB
+        rows.add(request("Tablet", 0, 1));      // invalid price
+        rows.add(request("Watch", 200, 999));   // unknown category
+        rows.add(request("phone", 600, 1));     // repeats row 1
+        rows.add(null);
+
+        bulkImportResultDTO result = productService.importProducts(rows);
+
+        assertEquals(1, result.getCreated());
+        assertEquals(5, result.getFailed());
+        assertEquals(List.of(2, 3, 4, 5, 6),
+                result.getErrors().stream().map(bulkImportResultDTO.rowError::getRow).toList());
+        assertEquals("Product with name 'LAPTOP' already exists", result.getErrors().get(0).getMessage());
+        assertEquals("Price must be greater than 0", result.getErrors().get(1).getMessage());
+        assertEquals("Category with ID 999 does not exist", result.getErrors().get(2).getMessage());
+
+        ArgumentCaptor<Product> saved = ArgumentCaptor.forClass(Product.class);
+        verify(productsRepo).save(saved.capture());
+        assertEquals("Phone", saved.getValue().getName());
+        verify(events).publishEvent(productNames(null, "Phone"));// one event for the whole import
+        // one lookup each for the categories and the names, whatever the batch size
+        verify(categoryRepo, times(1)).findExistingIds(anyCollection());
+        verify(productsRepo, times(1)).findExistingNameKeys(anyCollection());
+    }
+
+    @Test
+    void importProducts_FlushesAndClearsEveryBatch() {
+        when(categoryRepo.findExistingIds(anyCollection())).thenReturn(List.of(1));
+        when(productsRepo.findExistingNameKeys(anyCollection())).thenReturn(List.of());
+        when(categoryRepo.getReferenceById(1)).thenReturn(testCategory);
+
+        List<productRequestDTO> rows = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            rows.add(request("Product " + i, 10, 1));
+        }
+
+        assertEquals(120, productService.importProducts(rows).getCreated());
+
+        verify(productsRepo, times(120)).save(any(Product.class));
+        verify(productsRepo, times(3)).flush(); // after 50, after 100, and the remainder
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void importProducts_WhenNameTakenConcurrently_ThrowsDuplicate() {
+        when(categoryRepo.findExistingIds(anyCollection())).thenReturn(List.of(1));
+        when(productsRepo.findExistingNameKeys(anyCollection())).thenReturn(List.of());
+        when(categoryRepo.getReferenceById(1)).thenReturn(testCategory);
+        doThrow(constraintViolation("PUBLIC.UK_PRODUCTS_NAME_KEY_INDEX_F")).when(productsRepo).flush();
+
+        assertThrows(customException.DuplicateResourceException.class,
+                () -> productService.importProducts(List.of(request("Phone", 500, 1))));
+    }
+
+    @Test
+    void importProducts_WhenEmpty_ThrowsValidation() {
+        assertThrows(customException.ValidationException.class,
+                () -> productService.importProducts(List.of()));
+
+        verifyNoInteractions(productsRepo, categoryRepo);
+    }
+
+    /* ========================= SEARCH ========================= */
+
+    @Test
+    void searchProducts_DelegatesToIndex() {
+        productSearchResultDTO page = new productSearchResultDTO(1, List.of(new productNameDTO(3, "Laptop")));
+        when(searchIndex.search("lap", 0, 20)).thenReturn(page);
+
+        assertSame(page, productService.searchProducts("lap", 0, 20));
+        verifyNoInteractions(productsRepo);
+    }
+
+    @Test
+    void searchProducts_BlankQuery_Throws() {
+        Exception ex = assertThrows(customException.ValidationException.class,
+                () -> productService.searchProducts("  ", 0, 20));
+
+        assertEquals("Search query cannot be empty", ex.getMessage());
+    }
+
+    @Test
+    void searchProducts_WindowTooDeep_Throws() {
+        Exception ex = assertThrows(customException.ValidationException.class,
+                () -> productService.searchProducts("lap", 990, 20));
+
+        assertEquals("Offset plus limit must be between 1 and 1000", ex.getMessage());
+        verifyNoInteractions(searchIndex);
     }
 
     /* ========================= DELETE ========================= */
@@ -593,6 +1079,9 @@ class ProductServiceTest {
         productService.deleteProduct(10);
 
         verify(productsRepo).deleteById(10);
+        verify(events).publishEvent(productNames(10, null));
+        verify(events).publishEvent(argThat((Object e) -> e instanceof productChangeEvent event
+                && event.isDeleted() && event.getId(0) == 10));
     }
 
     @Test
@@ -604,4 +1093,36 @@ class ProductServiceTest {
 
         assertEquals("Product with ID 99 not found, cannot delete", ex.getMessage());
     }
+
+    private static productRequestDTO request(String name, int price, int categoryId) {
+        productRequestDTO dto = new productRequestDTO();
+        dto.setName(name);
+        dto.setPrice(price);
+        dto.setCategoryId(categoryId);
+        return dto;
+    }
+
+    private static DataIntegrityViolationException constraintViolation(String constraintName) {
+        return new DataIntegrityViolationException("constraint violated",
+                new ConstraintViolationException("constraint violated", new SQLException(), constraintName));
+    }
+
+    /** Matches a {@link productChangeEvent} saving exactly one product with the given category and price. */
+    private static Object productPrice(int id, int categoryId, int price) {
+        return argThat(e -> e instanceof productChangeEvent event
+                && !event.isDeleted()
+                && event.size() == 1
+                && event.getId(0) == id
+                && event.getCategoryId(0) == categoryId
+                && event.getPrice(0) == price);
+    }
+
+    /** Matches a product {@link nameChangeEvent} carrying exactly one ID (any if {@code null}) and name. */
+    private static Object productNames(Integer id, String name) {
+        return argThat(e -> e instanceof nameChangeEvent event
+                && event.getKind() == nameChangeEvent.kind.PRODUCT
+                && event.size() == 1
+                && (id == null || event.getId(0) == id)
+                && Objects.equals(event.getName(0), name));
+    }
 }
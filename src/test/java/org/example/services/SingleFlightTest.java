@@ -0,0 +1,126 @@
+package org.example.services;
+
+import org.example.exception.customException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link singleFlight}: a first call is held on a latch while others for the same key arrive.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final singleFlight<Integer, String> flight = new singleFlight<>();
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    /** A call that blocks until released, counting how often it runs. */
+    private String slowCall(String result) {
+        calls.incrementAndGet();
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    /** Starts the leader, waits until it runs, then starts the other callers. */
+    private List<Future<String>> runConcurrently(long maxWaitMillis, Supplier<String> call)
+            throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(pool.submit(() -> flight.run(1, maxWaitMillis, call)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(pool.submit(() -> flight.run(1, maxWaitMillis, call)));
+        }
+        return results;
+    }
+
+    @Test
+    void run_ConcurrentCallsForSameKey_ShareOneExecution() throws Exception {
+        List<Future<String>> results = runConcurrently(10_000, () -> slowCall("Book"));
+
+        Thread.sleep(100);// let the followers reach the wait
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("Book", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void run_SharedCallThrows_EveryCallerGetsTheException() throws Exception {
+        List<Future<String>> results = runConcurrently(10_000, () -> {
+            slowCall(null);
+            throw new customException.ResourceNotFoundException("Product with ID 1 not found");
+        });
+
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(customException.ResourceNotFoundException.class, e.getCause());
+            assertEquals("Product with ID 1 not found", e.getCause().getMessage());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void run_SharedCallTooSlow_FollowerRunsItsOwn() throws Exception {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(pool.submit(() -> flight.run(1, 10_000, () -> slowCall("slow"))));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        String follower = flight.run(1, 50, () -> "own");
+
+        assertEquals("own", follower);
+        release.countDown();
+        assertEquals("slow", results.get(0).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void run_DifferentKeys_RunIndependently() throws Exception {
+        Future<String> blocked = pool.submit(() -> flight.run(1, 10_000, () -> slowCall("one")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals("two", flight.run(2, 10_000, () -> "two"));
+
+        release.countDown();
+        assertEquals("one", blocked.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void run_AfterCallCompletes_NextCallRunsAgain() {
+        assertEquals("a", flight.run(1, 10_000, () -> "a"));
+        assertEquals("b", flight.run(1, 10_000, () -> "b"));
+        assertEquals(0, flight.inFlight());
+    }
+}